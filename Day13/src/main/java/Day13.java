@@ -2,12 +2,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntBinaryOperator;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -18,14 +22,38 @@ public class Day13 {
     public static void main(String[] args) {
         try {
             var path = args.length > 0 ? Path.of(args[0]) : Path.of("input.txt");
-            if (Files.exists(path)) {
+            var parser = args.length > 1 ? args[1] : "parser";
+            if (Files.exists(path) && parser.equals("lexer")) {
                 List<String> lines = Files.readAllLines(path).stream()
                         .collect(ArrayList::new,
                                 ArrayList::add,
                                 ArrayList::addAll);
                 execise1(lines);
                 execise2(lines);
-
+            } else if (Files.exists(path) && parser.equals("stream")) {
+                var data = Files.readAllBytes(path);
+                execise1Streaming(data);
+                execise2Parsed(PacketParser.parseAll(data));
+            } else if (Files.exists(path) && parser.equals("keys")) {
+                var packets = PacketParser.parseAll(Files.readAllBytes(path));
+                execise1Parsed(packets);
+                execise2Keys(packets);
+            } else if (Files.exists(path) && parser.equals("rank")) {
+                var data = Files.readAllBytes(path);
+                execise1Streaming(data);
+                execise2Ranks(data);
+            } else if (Files.exists(path) && parser.equals("pipeline")) {
+                var parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+                execise1Pipeline(path, parallelism);
+                execise2Ranks(Files.readAllBytes(path));
+            } else if (Files.exists(path) && parser.equals("arena")) {
+                execise12Arena(Files.readAllBytes(path));
+            } else if (Files.exists(path) && parser.equals("intern")) {
+                execise12Interned(Files.readAllBytes(path));
+            } else if (Files.exists(path)) {
+                var packets = PacketParser.parseAll(Files.readAllBytes(path));
+                execise1Parsed(packets);
+                execise2Parsed(packets);
             }
         } catch (IOException e) {
             // Unexpected
@@ -140,11 +168,21 @@ public class Day13 {
                     // DO NOTHING
                 }
                 token = new NumberToken(line.substring(start, current));
+                start = current - 1;
             }
             start++;
         }
     }
 
+    static Expression tokenize(String line) {
+        var lexer = new Lexer(line);
+        var tokens = new ArrayList<Token>();
+        while (lexer.isMatch()) {
+            tokens.add(lexer.next());
+        }
+        return new Expression(tokens);
+    }
+
     record Expression(List<Token> tokens) {
         @Override
         public boolean equals(Object o) {
@@ -264,6 +302,416 @@ public class Day13 {
         }
     }
 
+    // Builds Node trees straight from the bytes of a packet line, without the Token layer. Blank
+    // lines give no packet; anything that is not a well-formed packet is rejected
+    static class PacketParser {
+        private final byte[] data;
+        private final int from;
+        private final int end;
+        private int pos;
+        private Node[] stack = new Node[16];
+
+        PacketParser(byte[] data, int from, int to) {
+            this.data = data;
+            this.from = from;
+            this.pos = from;
+            this.end = to;
+        }
+
+        public static Node parse(String line) {
+            var bytes = line.getBytes(StandardCharsets.US_ASCII);
+            return new PacketParser(bytes, 0, bytes.length).packet();
+        }
+
+        public static List<Node> parseAll(byte[] data) {
+            var packets = new ArrayList<Node>();
+            int from = 0;
+            while (from < data.length) {
+                int to = from;
+                while (to < data.length && data[to] != '\n') {
+                    to++;
+                }
+                var packet = new PacketParser(data, from, to).packet();
+                if (packet != null) {
+                    packets.add(packet);
+                }
+                from = to + 1;
+            }
+            return packets;
+        }
+
+        public Node packet() {
+            Node root = null;
+            int depth = 0;
+            while (pos < end) {
+                int c = data[pos];
+                if (c == '[') {
+                    var node = new Node();
+                    if (depth > 0) {
+                        stack[depth - 1].add(node);
+                    } else if (root == null) {
+                        root = node;
+                    } else {
+                        throw error("Second packet");
+                    }
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = node;
+                    pos++;
+                } else if (c == ']') {
+                    if (depth == 0) {
+                        throw error("Unbalanced ]");
+                    }
+                    stack[--depth] = null;
+                    pos++;
+                } else if (c >= '0' && c <= '9') {
+                    if (depth == 0) {
+                        throw error("Number outside list");
+                    }
+                    int value = 0;
+                    while (pos < end && data[pos] >= '0' && data[pos] <= '9') {
+                        value = appendDigit(value, data[pos]);
+                        if (value < 0) {
+                            throw error("Number too large");
+                        }
+                        pos++;
+                    }
+                    stack[depth - 1].add(new Node(value, null));
+                } else if (isSeparator(data[pos])) {
+                    pos++;
+                } else {
+                    throw error("Unexpected '" + (char) c + "'");
+                }
+            }
+            if (depth != 0) {
+                throw error("Unbalanced [");
+            }
+            return root;
+        }
+
+        // What may stand between tokens, for the parser and PacketComparator alike
+        static boolean isSeparator(byte c) {
+            return c == ',' || isBlank(c);
+        }
+
+        static boolean isBlank(byte c) {
+            return c == ' ' || c == '\t' || c == '\r';
+        }
+
+        // The number with one more digit, or -1 once it no longer fits in an int
+        static int appendDigit(int value, byte digit) {
+            int d = digit - '0';
+            return value > (Integer.MAX_VALUE - d) / 10 ? -1 : value * 10 + d;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (pos - from) + " in '" + new String(data, from, end - from, StandardCharsets.US_ASCII) + "'");
+        }
+    }
+
+    // Compares two packets straight from their bytes with one cursor per packet, stopping at the
+    // first difference. A number compared with a list is wrapped virtually: the list side steps
+    // into the list, and the number side owes one ] for every such step once its number is read.
+    // All state is in locals, so a comparison allocates nothing
+    static class PacketComparator {
+        private static final int OPEN = -1;
+        private static final int CLOSE = -2;
+        private static final int END = -3;
+
+        public static int compare(String a, String b) {
+            var ba = a.getBytes(StandardCharsets.US_ASCII);
+            var bb = b.getBytes(StandardCharsets.US_ASCII);
+            return compare(ba, 0, ba.length, bb, 0, bb.length);
+        }
+
+        public static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+            int p1 = aFrom;
+            int p2 = bFrom;
+            int closes1 = 0;
+            int closes2 = 0;
+            int closesAfterNumber1 = 0;
+            int closesAfterNumber2 = 0;
+            while (true) {
+                int t1 = closes1 > 0 ? CLOSE : token(a, p1, aTo);
+                int t2 = closes2 > 0 ? CLOSE : token(b, p2, bTo);
+                if (t1 == END || t2 == END) {
+                    return t1 == t2 ? 0 : t1 == END ? -1 : 1;
+                } else if (t1 >= 0 && t2 >= 0) {
+                    if (t1 != t2) {
+                        return t1 < t2 ? -1 : 1;
+                    }
+                    p1 = skipNumber(a, p1, aTo);
+                    p2 = skipNumber(b, p2, bTo);
+                    closes1 = closesAfterNumber1;
+                    closes2 = closesAfterNumber2;
+                    closesAfterNumber1 = 0;
+                    closesAfterNumber2 = 0;
+                } else if (t1 == t2) {
+                    if (closes1 > 0) {
+                        closes1--;
+                    } else {
+                        p1 = skipBracket(a, p1, aTo);
+                    }
+                    if (closes2 > 0) {
+                        closes2--;
+                    } else {
+                        p2 = skipBracket(b, p2, bTo);
+                    }
+                } else if (t1 == CLOSE) {
+                    return -1;
+                } else if (t2 == CLOSE) {
+                    return 1;
+                } else if (t1 == OPEN) {
+                    p1 = skipBracket(a, p1, aTo);
+                    closesAfterNumber2++;
+                } else {
+                    p2 = skipBracket(b, p2, bTo);
+                    closesAfterNumber1++;
+                }
+            }
+        }
+
+        // The token at pos: OPEN, CLOSE, END or the value of a number
+        private static int token(byte[] data, int pos, int end) {
+            pos = skipSeparators(data, pos, end);
+            if (pos >= end) {
+                return END;
+            }
+            int c = data[pos];
+            if (c == '[') {
+                return OPEN;
+            } else if (c == ']') {
+                return CLOSE;
+            } else if (c >= '0' && c <= '9') {
+                int value = 0;
+                for (; pos < end && data[pos] >= '0' && data[pos] <= '9'; pos++) {
+                    value = PacketParser.appendDigit(value, data[pos]);
+                    if (value < 0) {
+                        throw new IllegalArgumentException("Number too large at " + pos);
+                    }
+                }
+                return value;
+            }
+            throw new IllegalArgumentException("Unexpected '" + (char) c + "' at " + pos);
+        }
+
+        private static int skipSeparators(byte[] data, int pos, int end) {
+            while (pos < end && PacketParser.isSeparator(data[pos])) {
+                pos++;
+            }
+            return pos;
+        }
+
+        private static int skipBracket(byte[] data, int pos, int end) {
+            return skipSeparators(data, pos, end) + 1;
+        }
+
+        private static int skipNumber(byte[] data, int pos, int end) {
+            pos = skipSeparators(data, pos, end);
+            while (pos < end && data[pos] >= '0' && data[pos] <= '9') {
+                pos++;
+            }
+            return pos;
+        }
+    }
+
+    // Order-preserving byte keys: unsigned lexicographic order of the keys is the order of
+    // compareNodes. A number compares like the same number wrapped in any number of singleton
+    // lists, so every number is wrapped down to one level below the deepest list of the packet set.
+    // After that a number never meets a list, and the comparison is plain lexicographic order with
+    // ] below everything. Packets that compare equal, like [[5]] and [5], share a key, so decoding
+    // gives the shortest such packet
+    static class SortKeys {
+        private static final byte CLOSE = 1;
+        private static final byte OPEN = 2;
+        private static final byte NUMBER = 3;
+
+        private final int numberLevel;
+
+        SortKeys(int numberLevel) {
+            this.numberLevel = numberLevel;
+        }
+
+        public static SortKeys forPackets(Iterable<Node> packets) {
+            int level = 0;
+            for (var packet : packets) {
+                level = Math.max(level, listLevel(packet, 0));
+            }
+            return new SortKeys(level + 1);
+        }
+
+        // The nesting level of the deepest list, counting the packet itself as level 0
+        private static int listLevel(Node node, int level) {
+            if (node.isLeaf()) {
+                return -1;
+            }
+            int max = level;
+            for (var child : node.children()) {
+                max = Math.max(max, listLevel(child, level + 1));
+            }
+            return max;
+        }
+
+        public byte[] encode(Node packet) {
+            byte[] key = new byte[size(packet, 0)];
+            int end = write(packet, 0, key, 0);
+            assert end == key.length;
+            return key;
+        }
+
+        private int size(Node node, int level) {
+            if (node.isLeaf()) {
+                if (level > numberLevel) {
+                    throw new IllegalArgumentException("Packet nested deeper than " + numberLevel + " levels");
+                }
+                return 2 * (numberLevel - level) + 5;
+            }
+            int size = 2;
+            for (var child : node.children()) {
+                size += size(child, level + 1);
+            }
+            return size;
+        }
+
+        private int write(Node node, int level, byte[] key, int pos) {
+            if (node.isLeaf()) {
+                int wraps = numberLevel - level;
+                for (int i = 0; i < wraps; i++) {
+                    key[pos++] = OPEN;
+                }
+                int value = node.number() ^ Integer.MIN_VALUE;
+                key[pos++] = NUMBER;
+                key[pos++] = (byte) (value >>> 24);
+                key[pos++] = (byte) (value >>> 16);
+                key[pos++] = (byte) (value >>> 8);
+                key[pos++] = (byte) value;
+                for (int i = 0; i < wraps; i++) {
+                    key[pos++] = CLOSE;
+                }
+                return pos;
+            }
+            key[pos++] = OPEN;
+            for (var child : node.children()) {
+                pos = write(child, level + 1, key, pos);
+            }
+            key[pos++] = CLOSE;
+            return pos;
+        }
+
+        // Lists that only hold a number are unwrapped again, except for the packet itself
+        public static Node decode(byte[] key) {
+            Node[] stack = new Node[16];
+            int depth = 0;
+            Node root = null;
+            int pos = 0;
+            while (pos < key.length) {
+                byte b = key[pos++];
+                if (b == OPEN) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = new Node();
+                } else if (b == NUMBER) {
+                    if (depth == 0 || pos + 4 > key.length) {
+                        throw new IllegalArgumentException("Malformed key at " + (pos - 1));
+                    }
+                    int value = (key[pos] & 0xFF) << 24 | (key[pos + 1] & 0xFF) << 16 | (key[pos + 2] & 0xFF) << 8 | key[pos + 3] & 0xFF;
+                    pos += 4;
+                    stack[depth - 1].add(new Node(value ^ Integer.MIN_VALUE, null));
+                } else if (b == CLOSE && depth > 0) {
+                    var node = stack[--depth];
+                    stack[depth] = null;
+                    if (depth == 0) {
+                        root = node;
+                    } else if (node.children().size() == 1 && node.children().get(0).isLeaf()) {
+                        stack[depth - 1].add(node.children().get(0));
+                    } else {
+                        stack[depth - 1].add(node);
+                    }
+                } else {
+                    throw new IllegalArgumentException("Malformed key at " + (pos - 1));
+                }
+            }
+            if (depth != 0 || root == null) {
+                throw new IllegalArgumentException("Truncated key");
+            }
+            return root;
+        }
+    }
+
+    // 1-based positions the probes would get if they were sorted in with the packets, found by
+    // counting the packets below each probe in one parallel pass instead of sorting. Equal packets
+    // go before a probe; equal probes keep their order
+    static int[] ranks(byte[] data, int[] bounds, List<String> probes) {
+        var probeBytes = probes.stream().map(p -> p.getBytes(StandardCharsets.US_ASCII)).toList();
+        int count = probeBytes.size();
+        long[] below = IntStream.range(0, bounds.length / 2).parallel().collect(
+                () -> new long[count],
+                (counts, i) -> {
+                    for (int p = 0; p < count; p++) {
+                        var probe = probeBytes.get(p);
+                        if (PacketComparator.compare(data, bounds[2 * i], bounds[2 * i + 1], probe, 0, probe.length) <= 0) {
+                            counts[p]++;
+                        }
+                    }
+                },
+                (c1, c2) -> {
+                    for (int p = 0; p < count; p++) {
+                        c1[p] += c2[p];
+                    }
+                });
+        int[] ranks = new int[count];
+        for (int p = 0; p < count; p++) {
+            var probe = probeBytes.get(p);
+            long rank = below[p] + 1;
+            for (int q = 0; q < count; q++) {
+                var other = probeBytes.get(q);
+                int c = PacketComparator.compare(other, 0, other.length, probe, 0, probe.length);
+                if (c < 0 || c == 0 && q < p) {
+                    rank++;
+                }
+            }
+            ranks[p] = Math.toIntExact(rank);
+        }
+        return ranks;
+    }
+
+    // 1-based positions of the dividers, the last two of the items, after a stable sort of the
+    // item indices: a packet equal to a divider goes before it, the same tie rule as ranks()
+    static int[] dividerPositions(int items, IntBinaryOperator compare) {
+        var order = IntStream.range(0, items).boxed().sorted(compare::applyAsInt).toList();
+        return new int[] {order.indexOf(items - 2) + 1, order.indexOf(items - 1) + 1};
+    }
+
+    // Start and end offsets of the non-blank lines, as from, to pairs
+    static int[] lineBounds(byte[] data) {
+        return lineBounds(data, 0, data.length);
+    }
+
+    static int[] lineBounds(byte[] data, int start, int end) {
+        int[] bounds = new int[64];
+        int n = 0;
+        int from = start;
+        while (from < end) {
+            int to = from;
+            boolean blank = true;
+            while (to < end && data[to] != '\n') {
+                blank &= PacketParser.isBlank(data[to]);
+                to++;
+            }
+            if (! blank) {
+                if (n + 2 > bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                bounds[n++] = from;
+                bounds[n++] = to;
+            }
+            from = to + 1;
+        }
+        return Arrays.copyOf(bounds, n);
+    }
+
     private static int comparePackets(Expression a, Expression b) {
         NodeTree ng1 = new NodeTree(a);
         NodeTree ng2 = new NodeTree(b);
@@ -279,14 +727,7 @@ public class Day13 {
     private static final Expression DELIMITER6 = new Expression(List.of(GROUP_START, GROUP_START, NUMBER_TOKEN_6, GROUP_END, GROUP_END));
 
     private static void execise1(List<String> lines) {
-        var expressions = lines.stream().map(l -> {
-            var lexer = new Lexer(l);
-            var tokens = new ArrayList<Token>();
-            while (lexer.isMatch()) {
-                tokens.add(lexer.next());
-            }
-            return tokens;
-        }).filter(t -> !t.isEmpty()).map(Expression::new).toList();
+        var expressions = lines.stream().map(Day13::tokenize).filter(e -> !e.tokens().isEmpty()).toList();
 
         var result = IntStream.range(0, (expressions.size()+1)/2).map(i -> {
             var exp1 = expressions.get(i*2);
@@ -304,26 +745,126 @@ public class Day13 {
         log.info("Sum: {}", sum);
     }
 
-    private static void execise2(List<String> lines) {
-        var expressions = lines.stream().map(l -> {
-            var lexer = new Lexer(l);
-            var tokens = new ArrayList<Token>();
-            while (lexer.isMatch()) {
-                tokens.add(lexer.next());
+    static long execise2(List<String> lines) {
+        var expressions = Stream.concat(lines.stream().map(Day13::tokenize).filter(e -> !e.tokens().isEmpty()), Stream.of(DELIMITER2, DELIMITER6)).toList();
+
+        int[] dividers = dividerPositions(expressions.size(), (i, j) -> comparePackets(expressions.get(i), expressions.get(j)));
+
+        long result = (long) dividers[0] * dividers[1];
+        log.info("Result: {}", result);
+        return result;
+    }
+
+    private static final Node DIVIDER2 = PacketParser.parse("[[2]]");
+    private static final Node DIVIDER6 = PacketParser.parse("[[6]]");
+    private static final byte[] DIVIDER2_BYTES = "[[2]]".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DIVIDER6_BYTES = "[[6]]".getBytes(StandardCharsets.US_ASCII);
+
+    private static void execise1Parsed(List<Node> packets) {
+        int sum = 0;
+        for (int i = 0; i + 1 < packets.size(); i += 2) {
+            if (compareNodes(packets.get(i), packets.get(i + 1)) < 0) {
+                sum += i / 2 + 1;
             }
-            return tokens;
-        }).filter(t -> !t.isEmpty()).map(Expression::new).toList();
+        }
+        log.info("Sum: {}", sum);
+    }
 
+    private static void execise1Streaming(byte[] data) {
+        int[] bounds = lineBounds(data);
+        long sum = 0;
+        for (int i = 0; i + 3 < bounds.length; i += 4) {
+            if (PacketComparator.compare(data, bounds[i], bounds[i + 1], data, bounds[i + 2], bounds[i + 3]) < 0) {
+                sum += i / 4 + 1;
+            }
+        }
+        log.info("Sum: {}", sum);
+    }
 
-        var result = Stream.concat(expressions.stream(), Stream.of(DELIMITER2, DELIMITER6)).sorted(Day13::comparePackets).toList();
+    private static void execise1Pipeline(Path path, int parallelism) throws IOException {
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            var result = new PairPipeline(path, PairPipeline.CHUNK_SIZE, pool).run();
+            log.info("Sum: {}", result.indexSum());
+            log.info("Parallelism {}: {} pairs in {} ms, {} pairs/s", parallelism, result.pairs(), result.nanos() / 1_000_000, String.format("%.0f", result.pairsPerSecond()));
+        } finally {
+            pool.shutdown();
+        }
+    }
 
-        var dividers = IntStream.range(0, expressions.size())
-                .filter(i -> result.get(i).equals(DELIMITER2) || result.get(i).equals(DELIMITER6))
-                .map(i->i+1)
-                .toArray();
+    static long execise12Arena(byte[] data) {
+        int[] bounds = lineBounds(data);
+        var arena = new PacketArena(data.length / 4);
+        int[] roots = new int[bounds.length / 2];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = arena.parse(data, bounds[2 * i], bounds[2 * i + 1]);
+        }
+        long sum = 0;
+        for (int i = 0; i + 1 < roots.length; i += 2) {
+            if (PacketArena.compareNodes(arena, roots[i], arena, roots[i + 1]) < 0) {
+                sum += i / 2 + 1;
+            }
+        }
+        log.info("Sum: {}", sum);
 
-        log.info("Result: {}", dividers[0] * dividers[1]);
+        int[] all = IntStream.concat(Arrays.stream(roots), IntStream.of(arena.add(DIVIDER2), arena.add(DIVIDER6))).toArray();
+        int[] dividers = dividerPositions(all.length, (i, j) -> PacketArena.compareNodes(arena, all[i], arena, all[j]));
+        long result = (long) dividers[0] * dividers[1];
+        log.info("Result: {}", result);
+        return result;
     }
 
-}
+    private static final int INTERN_CAPACITY = 1 << 16;
+    private static final int COMPARE_CACHE_BITS = 16;
+
+    static long execise12Interned(byte[] data) {
+        int[] bounds = lineBounds(data);
+        var interner = new PacketInterner(INTERN_CAPACITY, COMPARE_CACHE_BITS);
+        var packets = new ArrayList<PacketInterner.Term>();
+        for (int i = 0; i < bounds.length; i += 2) {
+            packets.add(interner.parse(data, bounds[i], bounds[i + 1]));
+        }
+        long sum = 0;
+        for (int i = 0; i + 1 < packets.size(); i += 2) {
+            if (interner.compare(packets.get(i), packets.get(i + 1)) < 0) {
+                sum += i / 2 + 1;
+            }
+        }
+        log.info("Sum: {}", sum);
 
+        packets.add(interner.parse(DIVIDER2_BYTES, 0, DIVIDER2_BYTES.length));
+        packets.add(interner.parse(DIVIDER6_BYTES, 0, DIVIDER6_BYTES.length));
+        int[] dividers = dividerPositions(packets.size(), (i, j) -> interner.compare(packets.get(i), packets.get(j)));
+        long result = (long) dividers[0] * dividers[1];
+        log.info("Result: {}", result);
+        log.info("Interning: {}", interner.stats());
+        return result;
+    }
+
+    static long execise2Parsed(List<Node> packets) {
+        var all = Stream.concat(packets.stream(), Stream.of(DIVIDER2, DIVIDER6)).toList();
+        int[] dividers = dividerPositions(all.size(), (i, j) -> compareNodes(all.get(i), all.get(j)));
+        long result = (long) dividers[0] * dividers[1];
+        log.info("Result: {}", result);
+        return result;
+    }
+
+    static long execise2Keys(List<Node> packets) {
+        var all = new ArrayList<>(packets);
+        all.add(DIVIDER2);
+        all.add(DIVIDER6);
+        var keys = SortKeys.forPackets(all);
+        var encoded = all.stream().map(keys::encode).toList();
+        int[] dividers = dividerPositions(encoded.size(), (i, j) -> Arrays.compareUnsigned(encoded.get(i), encoded.get(j)));
+        long result = (long) dividers[0] * dividers[1];
+        log.info("Result: {}", result);
+        return result;
+    }
+
+    static long execise2Ranks(byte[] data) {
+        var ranks = ranks(data, lineBounds(data), List.of("[[2]]", "[[6]]"));
+        long result = (long) ranks[0] * ranks[1];
+        log.info("Result: {}", result);
+        return result;
+    }
+}
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+// Packets stored as flat parallel arrays instead of Node objects: one slot per list or number,
+// lists linked to their first child and every node to its next sibling. Many packets share one
+// arena and are referred to by the index of their root
+public class PacketArena {
+
+    static final byte LEAF = 0;
+    static final byte LIST = 1;
+    static final int NONE = -1;
+
+    private byte[] kind;
+    private int[] value;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int size;
+    // Last child of every open list while parsing
+    private int[] lastChild = new int[16];
+
+    public PacketArena() {
+        this(1024);
+    }
+
+    public PacketArena(int capacity) {
+        capacity = Math.max(16, capacity);
+        kind = new byte[capacity];
+        value = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isLeaf(int node) {
+        return kind[node] == LEAF;
+    }
+
+    public int value(int node) {
+        return value[node];
+    }
+
+    public int firstChild(int node) {
+        return firstChild[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    // Parses one packet line the way Day13.PacketParser does; returns NONE for a blank line
+    public int parse(byte[] data, int from, int to) {
+        int root = NONE;
+        int[] open = new int[16];
+        int depth = 0;
+        int pos = from;
+        while (pos < to) {
+            int c = data[pos];
+            if (c == '[') {
+                int node = allocate(LIST, 0);
+                if (depth > 0) {
+                    append(open[depth - 1], node, depth - 1);
+                } else if (root == NONE) {
+                    root = node;
+                } else {
+                    throw new IllegalArgumentException("Second packet at column " + (pos - from));
+                }
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                    lastChild = Arrays.copyOf(lastChild, depth * 2);
+                }
+                open[depth++] = node;
+                pos++;
+            } else if (c == ']') {
+                if (depth == 0) {
+                    throw new IllegalArgumentException("Unbalanced ] at column " + (pos - from));
+                }
+                depth--;
+                pos++;
+            } else if (c >= '0' && c <= '9') {
+                if (depth == 0) {
+                    throw new IllegalArgumentException("Number outside list at column " + (pos - from));
+                }
+                int number = 0;
+                while (pos < to && data[pos] >= '0' && data[pos] <= '9') {
+                    number = Day13.PacketParser.appendDigit(number, data[pos]);
+                    if (number < 0) {
+                        throw new IllegalArgumentException("Number too large at column " + (pos - from));
+                    }
+                    pos++;
+                }
+                append(open[depth - 1], allocate(LEAF, number), depth - 1);
+            } else if (Day13.PacketParser.isSeparator(data[pos])) {
+                pos++;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + (char) c + "' at column " + (pos - from));
+            }
+        }
+        if (depth != 0) {
+            throw new IllegalArgumentException("Unbalanced [");
+        }
+        return root;
+    }
+
+    public int add(Day13.Node node) {
+        if (node.isLeaf()) {
+            return allocate(LEAF, node.number());
+        }
+        int list = allocate(LIST, 0);
+        int last = NONE;
+        for (var child : node.children()) {
+            int c = add(child);
+            if (last == NONE) {
+                firstChild[list] = c;
+            } else {
+                nextSibling[last] = c;
+            }
+            last = c;
+        }
+        return list;
+    }
+
+    public Day13.Node toNode(int node) {
+        if (isLeaf(node)) {
+            return new Day13.Node(value[node], null);
+        }
+        var list = new Day13.Node();
+        for (int c = firstChild[node]; c != NONE; c = nextSibling[c]) {
+            list.add(toNode(c));
+        }
+        return list;
+    }
+
+    private int allocate(byte k, int v) {
+        if (size == kind.length) {
+            int capacity = size * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            value = Arrays.copyOf(value, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+        }
+        kind[size] = k;
+        value[size] = v;
+        firstChild[size] = NONE;
+        nextSibling[size] = NONE;
+        return size++;
+    }
+
+    private void append(int list, int node, int level) {
+        if (firstChild[list] == NONE) {
+            firstChild[list] = node;
+        } else {
+            nextSibling[lastChild[level]] = node;
+        }
+        lastChild[level] = node;
+    }
+
+    // Same results as Day13.compareNodes; a number compared with a list is treated as a list
+    // holding only that number without creating one
+    public static int compareNodes(PacketArena a, int n1, PacketArena b, int n2) {
+        if (a.isLeaf(n1) && b.isLeaf(n2)) {
+            return Integer.signum(Integer.compare(a.value[n1], b.value[n2]));
+        } else if (a.isLeaf(n1)) {
+            return compareWithList(a, n1, b, n2);
+        } else if (b.isLeaf(n2)) {
+            return -compareWithList(b, n2, a, n1);
+        } else {
+            return compareLists(a, n1, b, n2);
+        }
+    }
+
+    private static int compareLists(PacketArena a, int n1, PacketArena b, int n2) {
+        int c1 = a.firstChild[n1];
+        int c2 = b.firstChild[n2];
+        while (c1 != NONE && c2 != NONE) {
+            var c = compareNodes(a, c1, b, c2);
+            if (c != 0) {
+                return c;
+            }
+            c1 = a.nextSibling[c1];
+            c2 = b.nextSibling[c2];
+        }
+        if (c1 == NONE && c2 == NONE) {
+            return 0;
+        } else {
+            return c1 != NONE ? 1 : -1;
+        }
+    }
+
+    private static int compareWithList(PacketArena a, int leaf, PacketArena b, int list) {
+        int first = b.firstChild[list];
+        if (first == NONE) {
+            return 1;
+        }
+        var c = compareNodes(a, leaf, b, first);
+        if (c != 0) {
+            return c;
+        }
+        return b.nextSibling[first] == NONE ? 0 : -1;
+    }
+}
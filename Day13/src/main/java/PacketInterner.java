@@ -0,0 +1,222 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hash-consing parser: identical subtrees come out as the same Term, so a repeated sub-list is
+// stored once and two equal subtrees compare by id alone. The table is an LRU bounded to a number
+// of subtrees; an evicted subtree is simply interned again under a new id the next time it shows
+// up. Ids are longs and never reused, so compare results cached by id stay valid after eviction
+public class PacketInterner {
+
+    public record Term(long id, int number, Term[] children) {
+        public boolean isLeaf() {
+            return children == null;
+        }
+
+        public Day13.Node toNode() {
+            if (isLeaf()) {
+                return new Day13.Node(number, null);
+            }
+            var node = new Day13.Node();
+            for (var child : children) {
+                node.add(child.toNode());
+            }
+            return node;
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size, long compareHits, long compareMisses) {
+    }
+
+    // A leaf is its number, a list the ids of its children
+    private static final class Shape {
+        private final int number;
+        private final long[] children;
+        private final int hash;
+
+        Shape(int number, long[] children) {
+            this.number = number;
+            this.children = children;
+            this.hash = children == null ? number : 31 * Arrays.hashCode(children) + 1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Shape s && number == s.number && Arrays.equals(children, s.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final long[] NO_CHILDREN = new long[0];
+    private static final long EMPTY = -1;
+
+    private final Map<Shape, Term> terms;
+    private long nextId;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    // Direct-mapped cache of compare results keyed on both ids; a collision replaces the entry
+    private final long[] compareFirst;
+    private final long[] compareSecond;
+    private final byte[] compareResults;
+    private final int compareShift;
+    private long compareHits;
+    private long compareMisses;
+
+    public PacketInterner(int capacity, int compareCacheBits) {
+        if (compareCacheBits < 1 || compareCacheBits > 30) {
+            throw new IllegalArgumentException("Compare cache bits out of range: " + compareCacheBits);
+        }
+        this.terms = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Shape, Term> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.compareFirst = new long[1 << compareCacheBits];
+        this.compareSecond = new long[1 << compareCacheBits];
+        this.compareResults = new byte[1 << compareCacheBits];
+        this.compareShift = 64 - compareCacheBits;
+        Arrays.fill(compareFirst, EMPTY);
+    }
+
+    public Stats stats() {
+        return new Stats(hits, misses, evictions, terms.size(), compareHits, compareMisses);
+    }
+
+    public Term leaf(int number) {
+        return intern(new Shape(number, null), number, null);
+    }
+
+    public Term list(List<Term> children) {
+        long[] ids = children.isEmpty() ? NO_CHILDREN : new long[children.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = children.get(i).id();
+        }
+        return intern(new Shape(-1, ids), -1, children.toArray(new Term[0]));
+    }
+
+    private Term intern(Shape shape, int number, Term[] children) {
+        var term = terms.get(shape);
+        if (term != null) {
+            hits++;
+            return term;
+        }
+        misses++;
+        term = new Term(nextId++, number, children);
+        terms.put(shape, term);
+        return term;
+    }
+
+    // Parses one packet line like Day13.PacketParser; returns null for a blank line
+    public Term parse(byte[] data, int from, int to) {
+        var open = new ArrayList<List<Term>>();
+        Term root = null;
+        int pos = from;
+        while (pos < to) {
+            int c = data[pos];
+            if (c == '[') {
+                if (open.isEmpty() && root != null) {
+                    throw new IllegalArgumentException("Second packet at column " + (pos - from));
+                }
+                open.add(new ArrayList<>());
+                pos++;
+            } else if (c == ']') {
+                if (open.isEmpty()) {
+                    throw new IllegalArgumentException("Unbalanced ] at column " + (pos - from));
+                }
+                var list = list(open.remove(open.size() - 1));
+                if (open.isEmpty()) {
+                    root = list;
+                } else {
+                    open.get(open.size() - 1).add(list);
+                }
+                pos++;
+            } else if (c >= '0' && c <= '9') {
+                if (open.isEmpty()) {
+                    throw new IllegalArgumentException("Number outside list at column " + (pos - from));
+                }
+                int number = 0;
+                while (pos < to && data[pos] >= '0' && data[pos] <= '9') {
+                    number = Day13.PacketParser.appendDigit(number, data[pos]);
+                    if (number < 0) {
+                        throw new IllegalArgumentException("Number too large at column " + (pos - from));
+                    }
+                    pos++;
+                }
+                open.get(open.size() - 1).add(leaf(number));
+            } else if (Day13.PacketParser.isSeparator(data[pos])) {
+                pos++;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + (char) c + "' at column " + (pos - from));
+            }
+        }
+        if (! open.isEmpty()) {
+            throw new IllegalArgumentException("Unbalanced [");
+        }
+        return root;
+    }
+
+    // Same results as Day13.compareNodes
+    public int compare(Term t1, Term t2) {
+        if (t1.id() == t2.id()) {
+            return 0;
+        }
+        if (t1.isLeaf() && t2.isLeaf()) {
+            return Integer.signum(Integer.compare(t1.number(), t2.number()));
+        }
+        long id1 = t1.id();
+        long id2 = t2.id();
+        int slot = (int) ((id1 * 0x9E3779B97F4A7C15L + id2) * 0xC2B2AE3D27D4EB4FL >>> compareShift);
+        if (compareFirst[slot] == id1 && compareSecond[slot] == id2) {
+            compareHits++;
+            return compareResults[slot];
+        }
+        compareMisses++;
+        int result;
+        if (t1.isLeaf()) {
+            result = compareWithList(t1, t2);
+        } else if (t2.isLeaf()) {
+            result = -compareWithList(t2, t1);
+        } else {
+            result = compareLists(t1.children(), t2.children());
+        }
+        compareFirst[slot] = id1;
+        compareSecond[slot] = id2;
+        compareResults[slot] = (byte) result;
+        return result;
+    }
+
+    private int compareLists(Term[] c1, Term[] c2) {
+        int n = Math.min(c1.length, c2.length);
+        for (int i = 0; i < n; i++) {
+            int c = compare(c1[i], c2[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return Integer.signum(Integer.compare(c1.length, c2.length));
+    }
+
+    private int compareWithList(Term leaf, Term list) {
+        if (list.children().length == 0) {
+            return 1;
+        }
+        int c = compare(leaf, list.children()[0]);
+        if (c != 0) {
+            return c;
+        }
+        return list.children().length == 1 ? 0 : -1;
+    }
+}
@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+// Reads the packet file in chunks cut at pair boundaries and compares the pairs of each chunk on
+// the pool while the next chunk is read. A chunk knows the index of its first pair, so the index
+// sums of the chunks just add up
+public class PairPipeline {
+
+    public static final int CHUNK_SIZE = 4 << 20;
+
+    public record Result(long pairs, long indexSum, long nanos) {
+        public double pairsPerSecond() {
+            return nanos == 0 ? 0 : pairs * 1e9 / nanos;
+        }
+    }
+
+    private record Chunk(byte[] data, int[] bounds, long firstPair) {
+        long indexSum() {
+            long sum = 0;
+            for (int i = 0; i + 3 < bounds.length; i += 4) {
+                if (Day13.PacketComparator.compare(data, bounds[i], bounds[i + 1], data, bounds[i + 2], bounds[i + 3]) < 0) {
+                    sum += firstPair + i / 4 + 1;
+                }
+            }
+            return sum;
+        }
+    }
+
+    private final Path path;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public PairPipeline(Path path, int chunkSize, ForkJoinPool pool) {
+        this.path = path;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    public Result run() throws IOException {
+        long start = System.nanoTime();
+        // Bounds the chunks held in memory to a couple per worker
+        int maxInFlight = 2 * pool.getParallelism();
+        var inFlight = new ArrayDeque<ForkJoinTask<Long>>();
+        long indexSum = 0;
+        long pairs = 0;
+        try (var channel = FileChannel.open(path, READ)) {
+            var buffer = ByteBuffer.allocate(chunkSize);
+            boolean end = false;
+            while (! end) {
+                end = channel.read(buffer) < 0;
+                if (! end && buffer.hasRemaining()) {
+                    continue;
+                }
+                byte[] data = buffer.array();
+                int filled = buffer.position();
+                int cut = end ? filled : lastLineEnd(data, filled);
+                if (cut < 0) {
+                    // A single line longer than the buffer
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                    continue;
+                }
+                int[] bounds = Day13.lineBounds(data, 0, cut);
+                if (! end && bounds.length % 4 != 0) {
+                    // Keep the first packet of an unfinished pair for the next chunk
+                    cut = bounds[bounds.length - 2];
+                    bounds = Arrays.copyOf(bounds, bounds.length - 2);
+                }
+                var chunk = new Chunk(Arrays.copyOf(data, cut), bounds, pairs);
+                pairs += bounds.length / 4;
+                inFlight.add(pool.submit(chunk::indexSum));
+                while (inFlight.size() >= maxInFlight) {
+                    indexSum += inFlight.poll().join();
+                }
+                buffer.flip().position(cut);
+                buffer.compact();
+                if (! buffer.hasRemaining()) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                }
+            }
+        }
+        while (! inFlight.isEmpty()) {
+            indexSum += inFlight.poll().join();
+        }
+        return new Result(pairs, indexSum, System.nanoTime() - start);
+    }
+
+    private static int lastLineEnd(byte[] data, int filled) {
+        for (int i = filled - 1; i >= 0; i--) {
+            if (data[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+}
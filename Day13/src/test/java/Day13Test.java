@@ -1,6 +1,14 @@
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntBinaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,4 +26,247 @@ class Day13Test {
         var nodeCheck = Day13.compareNodes(ng1.getRoot(), ng2.getRoot());
         assertEquals(1, nodeCheck);
     }
-}
\ No newline at end of file
+
+    private static final List<String> PACKETS = List.of(
+            "[1,1,3,1,1]", "[[1],[2,3,4]]", "[[8,7,6]]", "[[4,4],4,4,4]", "[]", "[[[]]]",
+            "[1,[2,[3,[4,[5,6,0]]]],8,9]", "[10,[0,100],[[]],7]");
+
+    @Test
+    void parserMatchesLexer() {
+        for (var line : PACKETS) {
+            var expected = new Day13.NodeTree(Day13.tokenize(line)).getRoot();
+            assertEquals(expected, Day13.PacketParser.parse(line), line);
+        }
+    }
+
+    @Test
+    void parseAllSkipsBlankLines() {
+        var data = "[1]\n[[2],10]\r\n\n[]\n".getBytes(StandardCharsets.US_ASCII);
+        var packets = Day13.PacketParser.parseAll(data);
+        assertEquals(3, packets.size());
+        assertEquals(Day13.PacketParser.parse("[[2],10]"), packets.get(1));
+        assertEquals(0, packets.get(2).children().size());
+    }
+
+    @Test
+    void parserRejectsMalformedPackets() {
+        for (var line : List.of("[1,2", "[1]]", "1", "[1,a]", "[1][2]")) {
+            assertThrows(IllegalArgumentException.class, () -> Day13.PacketParser.parse(line), line);
+        }
+    }
+
+    // The fixed packets, some equal when wrapped or unwrapped, plus random ones
+    private static List<String> corpus(long seed) {
+        var packets = new ArrayList<>(PACKETS);
+        packets.addAll(List.of("[3]", "[[[3]]]", "[[[]]]", "[[]]", "[[3],4]", "[3,[4]]", "[[10]]", "[[1,0]]", "[[1,2],3]", "[1,[2,3]]"));
+        var random = new Random(seed);
+        for (int i = 0; i < 200; i++) {
+            packets.add(randomPacket(random, 0));
+        }
+        return packets;
+    }
+
+    // compare takes two indices into the corpus
+    private static void assertAgreesWithCompareNodes(List<String> corpus, IntBinaryOperator compare) {
+        var nodes = corpus.stream().map(Day13.PacketParser::parse).toList();
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = 0; j < nodes.size(); j++) {
+                var expected = Day13.compareNodes(nodes.get(i), nodes.get(j));
+                assertEquals(expected, compare.applyAsInt(i, j), corpus.get(i) + " vs " + corpus.get(j));
+            }
+        }
+    }
+
+    @Test
+    void streamingComparatorMatchesNodes() {
+        var packets = corpus(13);
+        assertAgreesWithCompareNodes(packets, (i, j) -> Day13.PacketComparator.compare(packets.get(i), packets.get(j)));
+    }
+
+    @Test
+    void streamingComparatorRejectsOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> Day13.PacketComparator.compare("[1,[99999999999]]", "[1,[2]]"));
+        assertThrows(IllegalArgumentException.class, () -> Day13.PacketComparator.compare("[1]", "[4294967297]"));
+        assertEquals(-1, Day13.PacketComparator.compare("[1]", "[2147483647]"));
+    }
+
+    @Test
+    void parsersRejectOverflow() {
+        var bytes = "[1,[2147483648]]".getBytes(StandardCharsets.US_ASCII);
+        var e = assertThrows(IllegalArgumentException.class, () -> Day13.PacketParser.parse("[1,[2147483648]]"));
+        assertTrue(e.getMessage().contains("column 13"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> new PacketArena(4).parse(bytes, 0, bytes.length));
+        assertThrows(IllegalArgumentException.class, () -> new PacketInterner(8, 4).parse(bytes, 0, bytes.length));
+        assertEquals(Integer.MAX_VALUE, Day13.PacketParser.parse("[2147483647]").children().get(0).number());
+    }
+
+    @Test
+    void parserAndComparatorSkipTheSameSeparators() {
+        var line = "[1,\t[2 ,3],\t4]\r";
+        assertEquals(Day13.PacketParser.parse("[1,[2,3],4]"), Day13.PacketParser.parse(line));
+        assertEquals(0, Day13.PacketComparator.compare(line, "[1,[2,3],4]"));
+        assertEquals(-1, Day13.PacketComparator.compare(line, "[1,[2,3],4,0]"));
+    }
+
+    private static String randomPacket(Random random, int depth) {
+        var packet = new StringBuilder("[");
+        int size = random.nextInt(4);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                packet.append(',');
+            }
+            if (depth < 3 && random.nextInt(3) == 0) {
+                packet.append(randomPacket(random, depth + 1));
+            } else {
+                packet.append(random.nextInt(11));
+            }
+        }
+        return packet.append(']').toString();
+    }
+
+    @Test
+    void sortKeysPreserveOrder() {
+        var packets = corpus(21);
+        var nodes = packets.stream().map(Day13.PacketParser::parse).toList();
+        var keys = Day13.SortKeys.forPackets(nodes);
+        var encoded = nodes.stream().map(keys::encode).toList();
+        assertAgreesWithCompareNodes(packets, (i, j) -> Integer.signum(Arrays.compareUnsigned(encoded.get(i), encoded.get(j))));
+        for (var a : nodes) {
+            var decoded = Day13.SortKeys.decode(keys.encode(a));
+            assertEquals(0, Day13.compareNodes(a, decoded), a + " decoded as " + decoded);
+            assertArrayEquals(keys.encode(a), keys.encode(decoded));
+        }
+    }
+
+    @Test
+    void sortKeysDecodeShortestEqualPacket() {
+        var keys = new Day13.SortKeys(4);
+        var key = keys.encode(Day13.PacketParser.parse("[[[5]],[[]],[[1,[2]]]]"));
+        assertEquals(Day13.PacketParser.parse("[5,[[]],[[1,2]]]"), Day13.SortKeys.decode(key));
+        assertArrayEquals(key, keys.encode(Day13.PacketParser.parse("[5,[[]],[[1,2]]]")));
+    }
+
+    // Packets equal to the dividers, which sort before them
+    private static final List<String> TIES = List.of("[2]", "[[2]]", "[[[2]]]", "[1]", "[6]", "[[6]]", "[7]", "[[2],3]");
+
+    @Test
+    void keysPlaceDividersAfterEqualPackets() {
+        var packets = TIES.stream().map(Day13.PacketParser::parse).toList();
+        assertEquals(5 * 9, Day13.execise2Keys(packets));
+    }
+
+    @Test
+    void modesAgreeOnDividerTies() {
+        var random = new Random(22);
+        var lines = new ArrayList<>(TIES);
+        for (int i = 0; i < 100; i++) {
+            lines.add(randomPacket(random, 0));
+            lines.add(TIES.get(random.nextInt(TIES.size())));
+        }
+        var data = String.join("\n", lines).getBytes(StandardCharsets.US_ASCII);
+        var packets = Day13.PacketParser.parseAll(data);
+        long expected = Day13.execise2Ranks(data);
+        assertEquals(5 * 9, Day13.execise2Ranks(String.join("\n", TIES).getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(expected, Day13.execise2(lines));
+        assertEquals(expected, Day13.execise2Parsed(packets));
+        assertEquals(expected, Day13.execise2Keys(packets));
+        assertEquals(expected, Day13.execise12Arena(data));
+        assertEquals(expected, Day13.execise12Interned(data));
+    }
+
+    @Test
+    void ranksMatchSortedPositions() {
+        var random = new Random(22);
+        var lines = new ArrayList<String>();
+        for (int i = 0; i < 300; i++) {
+            lines.add(randomPacket(random, 0));
+        }
+        var probes = List.of("[[2]]", "[[6]]", "[]", "[3,[4]]", "[[2]]");
+        var data = String.join("\n", lines).getBytes(StandardCharsets.US_ASCII);
+        var ranks = Day13.ranks(data, Day13.lineBounds(data), probes);
+
+        // Stable sort with the probes after the packets gives the same tie order as ranks
+        var all = new ArrayList<Integer>();
+        var packets = new ArrayList<>(lines);
+        packets.addAll(probes);
+        for (int i = 0; i < packets.size(); i++) {
+            all.add(i);
+        }
+        all.sort((a, b) -> Day13.PacketComparator.compare(packets.get(a), packets.get(b)));
+        for (int p = 0; p < probes.size(); p++) {
+            assertEquals(all.indexOf(lines.size() + p) + 1, ranks[p], probes.get(p));
+        }
+    }
+
+    @Test
+    void pipelineMatchesSequentialSum() throws IOException {
+        var random = new Random(23);
+        var text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append(randomPacket(random, 0)).append('\n').append(randomPacket(random, 0)).append("\n\n");
+        }
+        var data = text.toString().getBytes(StandardCharsets.US_ASCII);
+        var bounds = Day13.lineBounds(data);
+        long expected = 0;
+        for (int i = 0; i + 3 < bounds.length; i += 4) {
+            if (Day13.PacketComparator.compare(data, bounds[i], bounds[i + 1], data, bounds[i + 2], bounds[i + 3]) < 0) {
+                expected += i / 4 + 1;
+            }
+        }
+
+        var path = Files.createTempFile("day13", ".txt");
+        var pool = new ForkJoinPool(3);
+        try {
+            Files.write(path, data);
+            // Chunks smaller than a pair, and smaller than some packets, force every carry-over path
+            for (int chunkSize : new int[] {16, 100, 1000, 1 << 20}) {
+                var result = new PairPipeline(path, chunkSize, pool).run();
+                assertEquals(500L, result.pairs());
+                assertEquals(expected, result.indexSum(), "chunk size " + chunkSize);
+            }
+        } finally {
+            pool.shutdown();
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void arenaMatchesNodes() {
+        var packets = corpus(24);
+        var arena = new PacketArena(16);
+        var nodes = packets.stream().map(Day13.PacketParser::parse).toList();
+        int[] roots = packets.stream().mapToInt(p -> {
+            var bytes = p.getBytes(StandardCharsets.US_ASCII);
+            return arena.parse(bytes, 0, bytes.length);
+        }).toArray();
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(nodes.get(i), arena.toNode(roots[i]), packets.get(i));
+            assertEquals(nodes.get(i), arena.toNode(arena.add(nodes.get(i))), packets.get(i));
+        }
+        assertAgreesWithCompareNodes(packets, (i, j) -> PacketArena.compareNodes(arena, roots[i], arena, roots[j]));
+    }
+
+    @Test
+    void internerSharesSubtreesAndMatchesNodes() {
+        var packets = corpus(25);
+        // A tiny table and compare cache force evictions and collisions
+        var interner = new PacketInterner(8, 4);
+        var nodes = packets.stream().map(Day13.PacketParser::parse).toList();
+        var terms = packets.stream().map(p -> {
+            var bytes = p.getBytes(StandardCharsets.US_ASCII);
+            return interner.parse(bytes, 0, bytes.length);
+        }).toList();
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals(nodes.get(i), terms.get(i).toNode(), packets.get(i));
+        }
+        assertAgreesWithCompareNodes(packets, (i, j) -> interner.compare(terms.get(i), terms.get(j)));
+        assertTrue(interner.stats().evictions() > 0);
+
+        var large = new PacketInterner(1000, 10);
+        var bytes = "[[1,[2,3]],[1,[2,3]],[2,3]]".getBytes(StandardCharsets.US_ASCII);
+        var packet = large.parse(bytes, 0, bytes.length);
+        assertSame(packet.children()[0], packet.children()[1]);
+        assertSame(packet.children()[0].children()[1], packet.children()[2]);
+        assertSame(packet, large.parse(bytes, 0, bytes.length));
+    }
+}
@@ -0,0 +1,53 @@
+package erinyq;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.List;
+
+public class BenchmarkRunner {
+
+    // The simple simulator and the hash map take minutes and gigabytes on the 100x and 1000x
+    // caves, so those only run the memoizing simulator on the grid backends
+    public static void main(String[] args) throws RunnerException {
+        var include = args.length > 0 ? args[0] : "erinyq\\.CaveBenchmark";
+        for (var cave : List.of("input", "10")) {
+            Variants.verify(CaveGenerator.cave(cave), Variants.BACKENDS, Variants.SIMULATORS);
+        }
+        for (var cave : List.of("100", "1000")) {
+            Variants.verify(CaveGenerator.cave(cave), List.of("grid", "nio"), List.of("memo"));
+        }
+
+        printBytesPerGrain(new Runner(new OptionsBuilder()
+                .include(include)
+                .param("cave", "input", "10")
+                .addProfiler(GCProfiler.class)
+                .build()).run());
+        printBytesPerGrain(new Runner(new OptionsBuilder()
+                .include(include)
+                .param("cave", "100", "1000")
+                .param("backend", "grid", "nio")
+                .param("simulator", "memo")
+                .addProfiler(GCProfiler.class)
+                .build()).run());
+    }
+
+    // Both counters are summed over the same iterations, so their ratio is the allocation per grain
+    static void printBytesPerGrain(Collection<RunResult> results) {
+        for (var result : results) {
+            var bytes = result.getSecondaryResults().get("allocatedBytes");
+            var grains = result.getSecondaryResults().get("grains");
+            if (bytes == null || grains == null || grains.getScore() == 0) {
+                continue;
+            }
+            var params = result.getParams();
+            System.out.printf("%s %s/%s%s: %.1f bytes per grain%n", params.getParam("cave"), params.getParam("backend"),
+                    params.getParam("simulator"), Boolean.parseBoolean(params.getParam("floor")) ? " with floor" : "",
+                    bytes.getScore() / grains.getScore());
+        }
+    }
+}
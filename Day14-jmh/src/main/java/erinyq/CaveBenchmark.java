@@ -0,0 +1,89 @@
+package erinyq;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// One operation fills a freshly read cave with sand. The cave is built outside the measurement,
+// and the allocation counter only covers the simulation, so bytes per grain leaves out parsing.
+// JMH sums EVENTS counters over the iterations, so only the raw sums are counters and
+// BenchmarkRunner divides them after the run
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CaveBenchmark {
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Param({"input", "10", "100", "1000"})
+    String cave;
+
+    @Param({"hash", "grid", "nio"})
+    String backend;
+
+    @Param({"simple", "memo"})
+    String simulator;
+
+    @Param({"false", "true"})
+    boolean floor;
+
+    Path path;
+    long expected;
+    Object map;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Allocation {
+        public long allocatedBytes;
+        public long grains;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            allocatedBytes = 0;
+            grains = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        path = CaveGenerator.cave(cave);
+        expected = Variants.reference(path, floor);
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+        map = Day14Access.newCaveMap(path, backend, floor);
+    }
+
+    @Benchmark
+    public long fill(Allocation allocation) {
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        Day14Access.simulate(map, simulator);
+        allocation.allocatedBytes += threads.getThreadAllocatedBytes(id) - before;
+        long sand = Day14Access.countSand(map);
+        if (sand != expected) {
+            throw new IllegalStateException(backend + "/" + simulator + " settled " + sand + " grains in " + cave + ", expected " + expected);
+        }
+        allocation.grains += sand;
+        return sand;
+    }
+}
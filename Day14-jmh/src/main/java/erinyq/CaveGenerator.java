@@ -0,0 +1,104 @@
+package erinyq;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+public class CaveGenerator {
+
+    public static final Path INPUT = Path.of(System.getProperty("day14.input", "../Day14/input.txt"));
+
+    private static final Pattern POINT = Pattern.compile("(\\d+),(\\d+)");
+    private static final int START_X = 500;
+    private static final ConcurrentHashMap<String, Path> caves = new ConcurrentHashMap<>();
+
+    // "input" is the bundled puzzle input, a number is a generated cave with that many times the
+    // cells of the floor exercise on the input
+    public static Path cave(String name) {
+        if (name.equals("input")) {
+            return INPUT;
+        }
+        return caves.computeIfAbsent(name, n -> {
+            try {
+                var path = Files.createTempFile("day14-x" + n + "-", ".txt");
+                path.toFile().deleteOnExit();
+                Files.write(path, generate(Files.readAllLines(INPUT), Integer.parseInt(n), 14));
+                return path;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Copies of the input's rock paths tiled with some jitter under a floor triangle that is
+    // sqrt(scale) times as deep, which makes the sand pile scale times as large. The input format
+    // has no negative coordinates, so tiles left of x = 0 are dropped
+    public static List<String> generate(List<String> input, int scale, long seed) {
+        List<int[]> paths = new ArrayList<>();
+        int xmin = Integer.MAX_VALUE;
+        int xmax = Integer.MIN_VALUE;
+        int ymin = Integer.MAX_VALUE;
+        int ymax = Integer.MIN_VALUE;
+        for (var line : input) {
+            var matcher = POINT.matcher(line);
+            var points = new ArrayList<Integer>();
+            while (matcher.find()) {
+                int x = Integer.parseInt(matcher.group(1));
+                int y = Integer.parseInt(matcher.group(2));
+                points.add(x);
+                points.add(y);
+                xmin = Math.min(xmin, x);
+                xmax = Math.max(xmax, x);
+                ymin = Math.min(ymin, y);
+                ymax = Math.max(ymax, y);
+            }
+            if (! points.isEmpty()) {
+                paths.add(points.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No rock paths in input");
+        }
+
+        var random = new Random(seed);
+        int tileWidth = xmax - xmin + 1;
+        int tileHeight = ymax - ymin + 1;
+        int depth = (int) Math.ceil((ymax + 2) * Math.sqrt(scale));
+        var lines = new ArrayList<String>();
+        for (int top = ymin; top + tileHeight <= depth; top += tileHeight) {
+            int reach = top + tileHeight;
+            for (int left = Math.max(0, START_X - reach); left < START_X + reach; left += tileWidth) {
+                int dx = left - xmin + random.nextInt(tileWidth / 4 + 1);
+                int dy = top - ymin + random.nextInt(tileHeight / 8 + 1);
+                for (int[] path : paths) {
+                    var line = new StringBuilder();
+                    for (int i = 0; i < path.length; i += 2) {
+                        if (i > 0) {
+                            line.append(" -> ");
+                        }
+                        line.append(path[i] + dx).append(',').append(path[i + 1] + dy);
+                    }
+                    lines.add(line.toString());
+                }
+            }
+        }
+        return lines;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var scale = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        var lines = generate(Files.readAllLines(INPUT), scale, 14);
+        if (args.length > 1) {
+            Files.write(Path.of(args[1]), lines);
+        } else {
+            lines.forEach(System.out::println);
+        }
+        System.err.println(lines.size() + " paths at scale " + scale);
+    }
+}
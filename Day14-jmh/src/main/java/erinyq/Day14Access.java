@@ -0,0 +1,73 @@
+package erinyq;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Path;
+
+import static java.lang.invoke.MethodType.methodType;
+
+// Day14 lives in the default package, which cannot be imported from a named package and which
+// JMH does not accept for benchmark classes, so the benchmarks reach it through method handles
+public class Day14Access {
+
+    private static final MethodHandle NEW_CAVE_MAP;
+    private static final MethodHandle PROCESS_SAND;
+    private static final MethodHandle PROCESS_SAND_MEMO;
+    private static final MethodHandle SOLVE_FLOOR;
+    private static final MethodHandle COUNT_SAND;
+
+    static {
+        try {
+            var day14 = Class.forName("Day14");
+            var caveMap = Class.forName("Day14$CaveMap");
+            var itemType = Class.forName("Day14$ItemType");
+            var lookup = MethodHandles.privateLookupIn(day14, MethodHandles.lookup());
+            NEW_CAVE_MAP = lookup.findStatic(day14, "newCaveMap", methodType(caveMap, Path.class, String.class, boolean.class));
+            PROCESS_SAND = lookup.findStatic(day14, "processSand", methodType(void.class, caveMap));
+            PROCESS_SAND_MEMO = lookup.findStatic(day14, "processSandMemo", methodType(void.class, caveMap));
+            SOLVE_FLOOR = lookup.findStatic(day14, "solveFloor", methodType(long.class, Path.class, String.class));
+            var sand = lookup.findStaticGetter(itemType, "SAND", itemType).invoke();
+            COUNT_SAND = MethodHandles.insertArguments(lookup.findVirtual(caveMap, "count", methodType(long.class, itemType)), 1, sand);
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static Object newCaveMap(Path path, String backend, boolean floor) {
+        try {
+            return NEW_CAVE_MAP.invoke(path, backend, floor);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot read cave " + path, e);
+        }
+    }
+
+    public static void simulate(Object map, String simulator) {
+        try {
+            switch (simulator) {
+                case "simple" -> PROCESS_SAND.invoke(map);
+                case "memo" -> PROCESS_SAND_MEMO.invoke(map);
+                default -> throw new IllegalArgumentException("Unknown simulator: " + simulator);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static long solveFloor(Path path, String backend) {
+        try {
+            return (long) SOLVE_FLOOR.invoke(path, backend);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot read cave " + path, e);
+        }
+    }
+
+    public static long countSand(Object map) {
+        try {
+            return (long) COUNT_SAND.invoke(map);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
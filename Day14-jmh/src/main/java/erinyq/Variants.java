@@ -0,0 +1,45 @@
+package erinyq;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Variants {
+
+    public static final List<String> BACKENDS = List.of("hash", "grid", "nio");
+    public static final List<String> SIMULATORS = List.of("simple", "memo");
+
+    private static final ConcurrentHashMap<String, Long> references = new ConcurrentHashMap<>();
+
+    // The expected sand count: the closed form with a floor, the grid with the memoizing
+    // simulator without one
+    public static long reference(Path path, boolean floor) {
+        return references.computeIfAbsent(path + ":" + floor, k -> {
+            if (floor) {
+                return Day14Access.solveFloor(path, "nio");
+            }
+            var map = Day14Access.newCaveMap(path, "grid", false);
+            Day14Access.simulate(map, "memo");
+            return Day14Access.countSand(map);
+        });
+    }
+
+    // Runs every backend and simulator on the cave and fails unless they settle the same number
+    // of grains as the reference
+    public static void verify(Path path, List<String> backends, List<String> simulators) {
+        for (boolean floor : new boolean[] {false, true}) {
+            long expected = reference(path, floor);
+            for (var backend : backends) {
+                for (var simulator : simulators) {
+                    var map = Day14Access.newCaveMap(path, backend, floor);
+                    Day14Access.simulate(map, simulator);
+                    long sand = Day14Access.countSand(map);
+                    if (sand != expected) {
+                        throw new IllegalStateException(backend + "/" + simulator + (floor ? " with floor" : "") + " settled " + sand + " grains in " + path + ", expected " + expected);
+                    }
+                }
+            }
+            System.out.println(path.getFileName() + (floor ? " with floor" : "") + ": " + expected + " grains, all variants agree");
+        }
+    }
+}
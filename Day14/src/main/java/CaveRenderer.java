@@ -0,0 +1,110 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+// Renders the grid row by row from slices of its cells into one reused line buffer
+public class CaveRenderer {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    // Indexed by ItemType ordinal, as are the first palette entries; the floor comes after them
+    private static final byte[] ASCII = {'#', 'o', '.'};
+    private static final byte FLOOR = (byte) Day14.ItemType.values().length;
+    private static final byte[] RED = {(byte) 0x80, (byte) 0xE0, 0x10, 0x40};
+    private static final byte[] GREEN = {(byte) 0x80, (byte) 0xC0, 0x10, 0x40};
+    private static final byte[] BLUE = {(byte) 0x80, 0x60, 0x20, 0x40};
+
+    private final Day14.GridCaveMap map;
+    private final boolean floor;
+
+    public CaveRenderer(Day14.GridCaveMap map) {
+        this.map = map;
+        this.floor = map instanceof Day14.GridCaveMapWithFloor;
+    }
+
+    public int width() {
+        return map.width;
+    }
+
+    // The grid ends just above the floor, which is drawn as one extra row
+    public int height() {
+        return map.height + (floor ? 1 : 0);
+    }
+
+    public void write(Path path) throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(".png")) {
+            writePng(path);
+        } else {
+            writeAscii(path);
+        }
+    }
+
+    // Same picture as the puzzle text: # rock, o sand, . air and + for the source
+    public void writeAscii(Path path) throws IOException {
+        int width = width();
+        byte[] line = new byte[width + 1];
+        line[width] = '\n';
+        int source = Day14.START_POSITION.x() - map.xmin;
+        try (var channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, line.length));
+            for (int y = 0; y < height(); y++) {
+                if (y < map.height) {
+                    int row = y * width;
+                    for (int x = 0; x < width; x++) {
+                        line[x] = ASCII[map.cells[row + x]];
+                    }
+                    if (y == Day14.START_POSITION.y() && source >= 0 && source < width && line[source] == '.') {
+                        line[source] = '+';
+                    }
+                } else {
+                    Arrays.fill(line, 0, width, (byte) '#');
+                }
+                if (buffer.remaining() < line.length) {
+                    flush(channel, buffer);
+                }
+                buffer.put(line);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    // One pixel per cell; the cell bytes are ItemType ordinals and double as palette indices
+    public void writePng(Path path) throws IOException {
+        int width = width();
+        var palette = new IndexColorModel(2, RED.length, RED, GREEN, BLUE);
+        var image = new BufferedImage(width, height(), BufferedImage.TYPE_BYTE_INDEXED, palette);
+        var raster = image.getRaster();
+        byte[] line = new byte[width];
+        for (int y = 0; y < height(); y++) {
+            if (y < map.height) {
+                System.arraycopy(map.cells, y * width, line, 0, width);
+            } else {
+                Arrays.fill(line, FLOOR);
+            }
+            raster.setDataElements(0, y, width, 1, line);
+        }
+        try (var channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+             var out = Channels.newOutputStream(channel)) {
+            if (! ImageIO.write(image, "png", out)) {
+                throw new IOException("No PNG writer available");
+            }
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -4,13 +4,18 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 public class Day14 {
 
@@ -27,13 +32,18 @@ public class Day14 {
     public static void main(String[] args) {
         try {
             var path = args.length > 0 ? Path.of(args[0]) : Path.of("input.txt");
-            if (Files.exists(path)) {
-                List<String> lines = Files.readAllLines(path).stream()
-                        .collect(ArrayList::new,
-                                ArrayList::add,
-                                ArrayList::addAll);
-                execise1(lines);
-                execise2(lines);
+            var backend = args.length > 1 ? args[1] : "grid";
+            var simulator = args.length > 2 ? args[2] : "memo";
+            if (Files.exists(path) && simulator.equals("flow")) {
+                var sources = args.length > 3 ? args[3] : "500,0";
+                var snapshotEvery = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+                var snapshots = args.length > 5 ? Path.of(args[5]) : Path.of("snapshots.bin");
+                flow(path, backend, false, sources, snapshotEvery, snapshots);
+                flow(path, backend, true, sources, snapshotEvery, snapshots);
+            } else if (Files.exists(path)) {
+                var render = args.length > 3 ? Path.of(args[3]) : null;
+                execise1(path, backend, simulator, render);
+                execise2(path, backend, simulator, render);
 
             }
         } catch (IOException e) {
@@ -67,13 +77,24 @@ public class Day14 {
         AIR
     }
 
+    record Metrics(long grainsSettled, long steps, long maxDepth, double grainsPerSecond) {
+    }
+
     static class CaveMap {
         private Map<Position, ItemType> items;
         protected Position topLeft;
         protected Position downRight;
+        // Plain counts for the thread writing the map; other threads, e.g. the progress reporter,
+        // see the totals last published by recordSteps
+        protected final long[] counts = new long[ItemType.values().length];
+        private final AtomicLongArray published = new AtomicLongArray(ItemType.values().length);
+        private final LongAdder steps = new LongAdder();
+        private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+        private volatile long startNanos;
 
         public CaveMap(Map<Position, ItemType> caveMap) {
             items = caveMap;
+            caveMap.values().forEach(t -> counts[t.ordinal()]++);
             int xmin = caveMap.keySet().stream().map(Position::x).min(Integer::compareTo).orElse(0);
             int xmax = caveMap.keySet().stream().map(Position::x).max(Integer::compareTo).orElse(0);
             int ymin = caveMap.keySet().stream().map(Position::y).min(Integer::compareTo).orElse(0);
@@ -82,8 +103,20 @@ public class Day14 {
             downRight = new Position(xmax, ymax);
         }
 
+        protected CaveMap(Position topLeft, Position downRight) {
+            items = new HashMap<>();
+            this.topLeft = topLeft;
+            this.downRight = downRight;
+        }
+
         public void put(Position p, ItemType t) {
-            items.put(p,t);
+            var old = items.put(p,t);
+            if (old != t) {
+                if (old != null) {
+                    counts[old.ordinal()]--;
+                }
+                counts[t.ordinal()]++;
+            }
         }
 
         public ItemType findItemType(Position p) {
@@ -100,8 +133,33 @@ public class Day14 {
                     grainPosition.y() <= downRight.y();
         }
 
+        // Only what the map holds is counted: the hash map has no air cells and the grid has one
+        // for every cell of its bounds, so an air count would differ between them
         public long count(ItemType type) {
-            return items.values().stream().filter(it -> it == type).count();
+            if (type == ItemType.AIR) {
+                throw new IllegalArgumentException("Air is not counted");
+            }
+            return counts[type.ordinal()];
+        }
+
+        // Simulators report their moves in batches, e.g. once per grain or tick, to keep the hot
+        // loop free; the cell counts are published along with them
+        public void recordSteps(long moves, int depth) {
+            if (startNanos == 0) {
+                startNanos = System.nanoTime();
+            }
+            steps.add(moves);
+            maxDepth.accumulate(depth);
+            for (int i = 0; i < counts.length; i++) {
+                published.setRelease(i, counts[i]);
+            }
+        }
+
+        public Metrics metrics() {
+            long settled = published.getAcquire(ItemType.SAND.ordinal());
+            long start = startNanos;
+            double seconds = start == 0 ? 0 : (System.nanoTime() - start) / 1e9;
+            return new Metrics(settled, steps.sum(), maxDepth.get(), seconds > 0 ? settled / seconds : 0);
         }
 
         public boolean isAvailable(Position nextGrainPosition) {
@@ -131,7 +189,180 @@ public class Day14 {
         }
     }
 
-    private static String regex = "(\\d{1,3},\\d{1,3})";
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+    private static final byte AIR_CELL = (byte) ItemType.AIR.ordinal();
+    private static final byte ROCK_CELL = (byte) ItemType.ROCK.ordinal();
+
+    static class GridCaveMap extends CaveMap {
+        protected int xmin;
+        protected int width;
+        protected int height;
+        protected byte[] cells;
+
+        public GridCaveMap(Map<Position, ItemType> caveMap) {
+            this(caveMap, false);
+        }
+
+        protected GridCaveMap(Map<Position, ItemType> caveMap, boolean floor) {
+            super(caveMap);
+            allocate(floor);
+            caveMap.forEach(this::put);
+        }
+
+        protected GridCaveMap(Position topLeft, Position downRight, boolean floor) {
+            super(topLeft, downRight);
+            allocate(floor);
+        }
+
+        private void allocate(boolean floor) {
+            // With a floor the sand pile is at most a triangle below the start reaching y = downRight.y + 1
+            int depth = downRight.y() + 2;
+            int left = floor ? Math.min(topLeft.x(), START_POSITION.x() - depth) : topLeft.x();
+            int right = floor ? Math.max(downRight.x(), START_POSITION.x() + depth) : downRight.x();
+            xmin = left;
+            width = right - left + 1;
+            height = depth;
+            cells = new byte[Math.multiplyExact(width, height)];
+            Arrays.fill(cells, AIR_CELL);
+            Arrays.fill(counts, 0);
+            counts[AIR_CELL] = cells.length;
+        }
+
+        public void addRock(int x1, int y1, int x2, int y2) {
+            if (x1 == x2) {
+                for (int y = Math.min(y1, y2); y <= Math.max(y1, y2); y++) {
+                    set(y * width + x1 - xmin, ROCK_CELL);
+                }
+            } else if (y1 == y2) {
+                int row = y1 * width - xmin;
+                for (int x = Math.min(x1, x2); x <= Math.max(x1, x2); x++) {
+                    set(row + x, ROCK_CELL);
+                }
+            } else {
+                set(y1 * width + x1 - xmin, ROCK_CELL);
+                set(y2 * width + x2 - xmin, ROCK_CELL);
+            }
+        }
+
+        private void set(int i, byte cell) {
+            byte old = cells[i];
+            if (old != cell) {
+                cells[i] = cell;
+                counts[old]--;
+                counts[cell]++;
+            }
+        }
+
+        // For writers that fill the cells directly, e.g. from several threads at once, and
+        // account for them afterwards from one thread
+        void recount(ItemType from, ItemType to, long cells) {
+            counts[from.ordinal()] -= cells;
+            counts[to.ordinal()] += cells;
+        }
+
+        // Rock cells packed as y << 32 | (x - left), in row then column order
+        long[] packedRocks(int left) {
+            long[] rocks = new long[(int) count(ItemType.ROCK)];
+            int n = 0;
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] == ROCK_CELL) {
+                    rocks[n++] = (long) (i / width) << 32 | (i % width + xmin - left) & 0xFFFFFFFFL;
+                }
+            }
+            return rocks;
+        }
+
+        private boolean inGrid(Position p) {
+            return p.x() >= xmin && p.x() < xmin + width && p.y() >= 0 && p.y() < height;
+        }
+
+        private int index(Position p) {
+            return p.y() * width + p.x() - xmin;
+        }
+
+        @Override
+        public void put(Position p, ItemType t) {
+            set(index(p), (byte) t.ordinal());
+        }
+
+        @Override
+        public ItemType findItemType(Position p) {
+            return inGrid(p) ? ITEM_TYPES[cells[index(p)]] : ItemType.AIR;
+        }
+
+        @Override
+        public boolean isAvailable(Position nextGrainPosition) {
+            return ! inGrid(nextGrainPosition) || cells[index(nextGrainPosition)] == AIR_CELL;
+        }
+    }
+
+    static class GridCaveMapWithFloor extends GridCaveMap {
+
+        public GridCaveMapWithFloor(Map<Position, ItemType> caveMap) {
+            super(caveMap, true);
+        }
+
+        public GridCaveMapWithFloor(Position topLeft, Position downRight) {
+            super(topLeft, downRight, true);
+        }
+
+        @Override
+        public boolean isInside(Position grainPosition) {
+            return grainPosition.y() <= downRight.y() + 1;
+        }
+
+        @Override
+        public boolean isAvailable(Position nextGrainPosition) {
+            if (! isInside(nextGrainPosition)) {
+                return false;
+            }
+            return super.isAvailable(nextGrainPosition);
+        }
+    }
+
+    static GridCaveMap scanCaveMap(Path path, boolean floor) throws IOException {
+        var scan = new RockScan(path);
+        var bounds = scan.bounds();
+        var topLeft = new Position(bounds.xmin(), bounds.ymin());
+        var downRight = new Position(bounds.xmax(), bounds.ymax());
+        var map = floor ? new GridCaveMapWithFloor(topLeft, downRight) : new GridCaveMap(topLeft, downRight, false);
+        scan.forEachSegment(map::addRock);
+        return map;
+    }
+
+    // The hash backend is copied into a grid of the same bounds, so it renders the same way
+    static GridCaveMap toGrid(CaveMap map) {
+        if (map instanceof GridCaveMap grid) {
+            return grid;
+        }
+        var grid = map instanceof CaveMapWithFloor
+                ? new GridCaveMapWithFloor(map.topLeft, map.downRight)
+                : new GridCaveMap(map.topLeft, map.downRight, false);
+        map.items.forEach(grid::put);
+        return grid;
+    }
+
+    private static void render(CaveMap map, Path render, boolean floor) throws IOException {
+        if (render == null) {
+            return;
+        }
+        var file = floor ? render.resolveSibling("floor-" + render.getFileName()) : render;
+        new CaveRenderer(toGrid(map)).write(file);
+        log.info("Rendered {}", file);
+    }
+
+    static CaveMap newCaveMap(Path path, String backend, boolean floor) throws IOException {
+        if (backend.equals("nio")) {
+            return scanCaveMap(path, floor);
+        }
+        var rocks = createCaveMap(Files.readAllLines(path));
+        if (backend.equals("hash")) {
+            return floor ? new CaveMapWithFloor(rocks) : new CaveMap(rocks);
+        }
+        return floor ? new GridCaveMapWithFloor(rocks) : new GridCaveMap(rocks);
+    }
+
+    private static String regex = "(\\d+,\\d+)";
     private static Pattern positionsPattern = Pattern.compile(regex);
 
     private static boolean checkIfPositionIsAvailable(CaveMap map, Position nextGrainPosition) {
@@ -167,7 +398,7 @@ public class Day14 {
         return diff.y() > 0 ? ONE_UP : ONE_DOWN;
     }
 
-    private static Map<Position, ItemType> createCaveMap(List<String> lines) {
+    static Map<Position, ItemType> createCaveMap(List<String> lines) {
         Map<Position, ItemType> map = new HashMap<>();
         lines.forEach(line -> {
             var matcher = positionsPattern.matcher(line);
@@ -180,18 +411,24 @@ public class Day14 {
         return map;
     }
 
-    private static void processSand(CaveMap map) {
+    static void processSand(CaveMap map) {
         boolean done = false;
         while (! done) {
             Position grainPosition = START_POSITION;
             boolean canMove = true;
+            long steps = 0;
             while (canMove && map.isInside(grainPosition)) {
-                var newPosition = Stream.of(grainPosition.add(ONE_UP), grainPosition.add(ONE_UPLEFT), grainPosition.add(ONE_UPRIGHT))
-                        .filter(p -> checkIfPositionIsAvailable(map, p))
-                        .findFirst().orElse(START_POSITION);
+                var down = grainPosition.add(ONE_UP);
+                var downLeft = grainPosition.add(ONE_UPLEFT);
+                var downRight = grainPosition.add(ONE_UPRIGHT);
+                var newPosition = checkIfPositionIsAvailable(map, down) ? down
+                        : checkIfPositionIsAvailable(map, downLeft) ? downLeft
+                        : checkIfPositionIsAvailable(map, downRight) ? downRight
+                        : START_POSITION;
                 canMove = newPosition != START_POSITION;
                 if (canMove) {
                     grainPosition = newPosition;
+                    steps++;
                 }
             }
             if (map.isInside(grainPosition)) {
@@ -200,21 +437,177 @@ public class Day14 {
             } else {
                 done = true;
             }
+            map.recordSteps(steps, grainPosition.y());
+        }
+    }
+
+    // Keeps the path of the falling grain; a grain comes to rest at the top of the path, so the
+    // next grain can continue from the cell above it instead of falling from START_POSITION again
+    static void processSandMemo(CaveMap map) {
+        Deque<Position> path = new ArrayDeque<>();
+        path.push(START_POSITION);
+        long steps = 0;
+        while (! path.isEmpty()) {
+            var grainPosition = path.peek();
+            if (! map.isInside(grainPosition)) {
+                map.recordSteps(steps, grainPosition.y());
+                return;
+            }
+            var down = grainPosition.add(ONE_UP);
+            var downLeft = grainPosition.add(ONE_UPLEFT);
+            var downRight = grainPosition.add(ONE_UPRIGHT);
+            if (checkIfPositionIsAvailable(map, down)) {
+                path.push(down);
+                steps++;
+            } else if (checkIfPositionIsAvailable(map, downLeft)) {
+                path.push(downLeft);
+                steps++;
+            } else if (checkIfPositionIsAvailable(map, downRight)) {
+                path.push(downRight);
+                steps++;
+            } else {
+                map.put(path.pop(), ItemType.SAND);
+                map.recordSteps(steps, grainPosition.y());
+                steps = 0;
+            }
         }
     }
 
-    private static void execise1(List<String> lines) {
-        CaveMap map = new CaveMap(createCaveMap(lines));
-        processSand(map);
+    // With a floor every cell a grain can reach from START_POSITION ends up filled, so row y + 1
+    // is the reachable row y spread one step left and right, minus the rock on row y + 1
+    static long solveFloor(Map<Position, ItemType> caveMap) {
+        int rows = caveMap.keySet().stream().mapToInt(Position::y).max().orElse(0) + 2;
+        int left = START_POSITION.x() - rows;
+        // Rock cells sorted on row then column, packed as y << 32 | (x - left)
+        long[] rocks = caveMap.entrySet().stream()
+                .filter(e -> e.getValue() == ItemType.ROCK)
+                .mapToLong(e -> (long) e.getKey().y() << 32 | (e.getKey().x() - left) & 0xFFFFFFFFL)
+                .sorted()
+                .toArray();
+        return solveFloor(rocks, rows);
+    }
+
+    static long solveFloor(GridCaveMap map) {
+        int rows = map.downRight.y() + 2;
+        return solveFloor(map.packedRocks(START_POSITION.x() - rows), rows);
+    }
+
+    private static long solveFloor(long[] rocks, int rows) {
+        int left = START_POSITION.x() - rows;
+        int width = 2 * rows + 1;
+        int words = (width + 63) >>> 6;
+
+        long[] current = new long[words];
+        long[] next = new long[words];
+        long[] blocked = new long[words];
+        int rock = 0;
+        long count = 0;
+        for (int y = 0; y < rows; y++) {
+            Arrays.fill(blocked, 0);
+            for (; rock < rocks.length && (rocks[rock] >>> 32) <= y; rock++) {
+                int x = (int) rocks[rock];
+                if ((rocks[rock] >>> 32) == y && x >= 0 && x < width) {
+                    blocked[x >>> 6] |= 1L << (x & 63);
+                }
+            }
+            if (y == 0) {
+                int start = START_POSITION.x() - left;
+                next[start >>> 6] = 1L << (start & 63);
+            } else {
+                for (int w = 0; w < words; w++) {
+                    long spread = current[w] | current[w] << 1 | current[w] >>> 1;
+                    if (w > 0) {
+                        spread |= current[w - 1] >>> 63;
+                    }
+                    if (w + 1 < words) {
+                        spread |= current[w + 1] << 63;
+                    }
+                    next[w] = spread;
+                }
+            }
+            for (int w = 0; w < words; w++) {
+                next[w] &= ~blocked[w];
+                count += Long.bitCount(next[w]);
+            }
+            var swap = current;
+            current = next;
+            next = swap;
+        }
+        return count;
+    }
+
+    private static final long PROGRESS_SECONDS = 5;
+
+    // Polls the live metrics from a daemon thread, so long simulations show progress without
+    // being paused
+    private static void simulate(CaveMap map, String simulator) {
+        var progress = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "sand-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        progress.scheduleAtFixedRate(() -> log.info("Progress: {}", map.metrics()), PROGRESS_SECONDS, PROGRESS_SECONDS, TimeUnit.SECONDS);
+        try {
+            // The check compares the closed form with the reference simulator, not the memoizing one
+            if (simulator.equals("simple") || simulator.equals("check")) {
+                processSand(map);
+            } else {
+                processSandMemo(map);
+            }
+        } finally {
+            progress.shutdownNow();
+        }
+        log.debug("Metrics: {}", map.metrics());
+    }
+
+    private static final int FLOW_BAND_HEIGHT = 16;
+
+    private static void flow(Path path, String backend, boolean floor, String sourceList, int snapshotEvery, Path snapshots) throws IOException {
+        if (backend.equals("hash")) {
+            throw new IllegalArgumentException("Flow simulation needs a grid backend");
+        }
+        var map = (GridCaveMap) newCaveMap(path, backend, floor);
+        var sources = Arrays.stream(sourceList.split(";")).map(Day14::newPosition).toList();
+        var file = floor ? snapshots.resolveSibling("floor-" + snapshots.getFileName()) : snapshots;
+        var flow = new SandFlow(map, sources, FLOW_BAND_HEIGHT);
+        flow.run(snapshotEvery, file);
+        log.info("Flow after {} ticks: settled {}, lost {}, in flight {}", flow.tick(), flow.settled(), flow.lost(), flow.inFlight());
+        log.debug("Metrics: {}", map.metrics());
+    }
+
+    static long solveFloor(Path path, String backend) throws IOException {
+        if (backend.equals("hash")) {
+            return solveFloor(createCaveMap(Files.readAllLines(path)));
+        }
+        return solveFloor((GridCaveMap) newCaveMap(path, backend, true));
+    }
+
+    private static void execise1(Path path, String backend, String simulator, Path render) throws IOException {
+        CaveMap map = newCaveMap(path, backend, false);
+        simulate(map, simulator);
         var result = map.count(ItemType.SAND);
         log.info("Result: {}", result);
+        render(map, render, false);
     }
 
-    private static void execise2(List<String> lines) {
-        CaveMapWithFloor map = new CaveMapWithFloor(createCaveMap(lines));
-        processSand(map);
+    private static void execise2(Path path, String backend, String simulator, Path render) throws IOException {
+        if (simulator.equals("closed")) {
+            log.info("Result: {}", solveFloor(path, backend));
+            return;
+        }
+        CaveMap map = newCaveMap(path, backend, true);
+        simulate(map, simulator);
 
         var result = map.count(ItemType.SAND);
         log.info("Result: {}", result);
+        render(map, render, true);
+        if (simulator.equals("check")) {
+            var closed = solveFloor(path, backend);
+            if (closed == result) {
+                log.info("Closed form agrees: {}", closed);
+            } else {
+                log.warn("Closed form differs: {} != {}", closed, result);
+            }
+        }
     }
-}
\ No newline at end of file
+}
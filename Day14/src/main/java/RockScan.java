@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+public class RockScan {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    @FunctionalInterface
+    public interface SegmentConsumer {
+        void accept(int x1, int y1, int x2, int y2);
+    }
+
+    record Bounds(int xmin, int ymin, int xmax, int ymax) {
+    }
+
+    private final Path path;
+
+    public RockScan(Path path) {
+        this.path = path;
+    }
+
+    public Bounds bounds() throws IOException {
+        int[] b = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        forEachSegment((x1, y1, x2, y2) -> {
+            b[0] = Math.min(b[0], Math.min(x1, x2));
+            b[1] = Math.min(b[1], Math.min(y1, y2));
+            b[2] = Math.max(b[2], Math.max(x1, x2));
+            b[3] = Math.max(b[3], Math.max(y1, y2));
+        });
+        return b[0] > b[2] ? new Bounds(0, 0, 0, 0) : new Bounds(b[0], b[1], b[2], b[3]);
+    }
+
+    // Decodes "x,y -> x,y -> ..." lines straight from the bytes; a path with a single point
+    // is reported as a segment from the point to itself
+    public void forEachSegment(SegmentConsumer consumer) throws IOException {
+        try (var channel = FileChannel.open(path, READ)) {
+            var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long value = 0;
+            boolean inNumber = false;
+            boolean negative = false;
+            boolean minus = false;
+            int coordinate = 0;
+            int x = 0;
+            int prevX = 0;
+            int prevY = 0;
+            int points = 0;
+            while (true) {
+                int read = channel.read(buffer);
+                buffer.flip();
+                boolean end = read < 0;
+                while (buffer.hasRemaining() || end) {
+                    int c = buffer.hasRemaining() ? buffer.get() : '\n';
+                    if (c >= '0' && c <= '9') {
+                        if (! inNumber) {
+                            inNumber = true;
+                            negative = minus;
+                            value = 0;
+                        }
+                        value = value * 10 + (c - '0');
+                        if (value > Integer.MAX_VALUE) {
+                            throw new IOException("Coordinate out of range in " + path);
+                        }
+                        continue;
+                    }
+                    minus = c == '-';
+                    if (inNumber) {
+                        inNumber = false;
+                        int n = (int) (negative ? -value : value);
+                        if (coordinate == 0) {
+                            x = n;
+                            coordinate = 1;
+                        } else {
+                            if (points > 0) {
+                                consumer.accept(prevX, prevY, x, n);
+                            }
+                            prevX = x;
+                            prevY = n;
+                            points++;
+                            coordinate = 0;
+                        }
+                    }
+                    if (c == '\n') {
+                        if (points == 1) {
+                            consumer.accept(prevX, prevY, prevX, prevY);
+                        }
+                        points = 0;
+                        coordinate = 0;
+                        if (end) {
+                            break;
+                        }
+                    }
+                }
+                if (end) {
+                    return;
+                }
+                buffer.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Time-stepped sand: every tick each source drops a grain if its cell is free and every grain in
+// flight moves one step. Grains only see the grains in flight at the start of the tick, so row
+// bands can all be updated in parallel and the result does not depend on the band height.
+public class SandFlow {
+
+    private static final byte NONE = 0;
+    private static final byte GRAIN = 1;
+    private static final byte AIR_CELL = (byte) Day14.ItemType.AIR.ordinal();
+    private static final byte SAND_CELL = (byte) Day14.ItemType.SAND.ordinal();
+    private static final int[] MOVES = {0, -1, 1};
+    private static final int SNAPSHOT_MAGIC = 0x53414E44;
+
+    private final Day14.GridCaveMap map;
+    private final boolean floor;
+    private final int[] sources;
+    private final int bandHeight;
+    private final int bands;
+    // Grains in flight, and a copy of them taken at the start of each tick
+    private final byte[] falling;
+    private final byte[] previous;
+
+    private long tick;
+    private long inFlight;
+    private long settled;
+    private long lost;
+    private long lastSettledTick;
+
+    public SandFlow(Day14.GridCaveMap map, List<Day14.Position> sources, int bandHeight) {
+        this.map = map;
+        this.floor = map instanceof Day14.GridCaveMapWithFloor;
+        this.sources = sources.stream().mapToInt(p -> {
+            if (p.x() < map.xmin || p.x() >= map.xmin + map.width || p.y() < 0 || p.y() >= map.height) {
+                throw new IllegalArgumentException("Source outside cave: " + p);
+            }
+            return p.y() * map.width + p.x() - map.xmin;
+        }).toArray();
+        this.bandHeight = Math.max(1, bandHeight);
+        this.bands = (map.height + this.bandHeight - 1) / this.bandHeight;
+        this.falling = new byte[map.cells.length];
+        this.previous = new byte[map.cells.length];
+    }
+
+    public long tick() {
+        return tick;
+    }
+
+    public long inFlight() {
+        return inFlight;
+    }
+
+    public long settled() {
+        return settled;
+    }
+
+    public long lost() {
+        return lost;
+    }
+
+    // Runs until nothing moves any more, or until no grain has settled for long enough that the
+    // remaining flow can only be falling through to the abyss
+    public void run(int snapshotEvery, Path snapshots) throws IOException {
+        try (var out = snapshotEvery > 0 ? new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(snapshots))) : null) {
+            while (step()) {
+                if (out != null && tick % snapshotEvery == 0) {
+                    writeSnapshot(out);
+                }
+            }
+            if (out != null) {
+                writeSnapshot(out);
+            }
+        }
+    }
+
+    public boolean step() {
+        tick++;
+        long spawned = 0;
+        for (int source : sources) {
+            if (map.cells[source] == AIR_CELL && falling[source] == NONE) {
+                falling[source] = GRAIN;
+                spawned++;
+            }
+        }
+        System.arraycopy(falling, 0, previous, 0, falling.length);
+        long before = settled;
+        long[] changes = new long[4];
+        var results = IntStream.range(0, bands).parallel()
+                .mapToObj(this::updateBand)
+                .toList();
+        for (long[] r : results) {
+            changes[0] += r[0];
+            changes[1] += r[1];
+            changes[2] += r[2];
+            changes[3] = Math.max(changes[3], r[3]);
+        }
+        map.recount(Day14.ItemType.AIR, Day14.ItemType.SAND, changes[0]);
+        inFlight += spawned - changes[0] - changes[1];
+        settled += changes[0];
+        lost += changes[1];
+        map.recordSteps(changes[2], (int) changes[3]);
+        if (settled != before) {
+            lastSettledTick = tick;
+        }
+        boolean moving = changes[0] + changes[1] + changes[2] + spawned > 0;
+        boolean steady = tick - lastSettledTick > 2L * map.height;
+        return moving && ! steady;
+    }
+
+    // Returns grains settled, lost and moved in this band, and the deepest row a grain moved to.
+    // A band only writes cells of its own rows and free cells of the row below it, which the band
+    // owning that row leaves alone because they were empty at the start of the tick.
+    // Settled grains are written straight to the cells and counted in the map after the tick.
+    private long[] updateBand(int band) {
+        long[] changes = new long[4];
+        int width = map.width;
+        byte[] cells = map.cells;
+        int top = band * bandHeight;
+        int bottom = Math.min(map.height, top + bandHeight);
+        for (int y = bottom - 1; y >= top; y--) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                int i = row + x;
+                if (previous[i] == NONE) {
+                    continue;
+                }
+                boolean waiting = false;
+                int target = -1;
+                for (int move : MOVES) {
+                    int nx = x + move;
+                    int ny = y + 1;
+                    if (ny >= map.height || nx < 0 || nx >= width) {
+                        if (floor && ny >= map.height) {
+                            continue;
+                        }
+                        target = -2;
+                        break;
+                    }
+                    int j = ny * width + nx;
+                    if (previous[j] == NONE && cells[j] != AIR_CELL) {
+                        continue;
+                    }
+                    if (previous[j] != NONE || falling[j] != NONE) {
+                        waiting = true;
+                        continue;
+                    }
+                    target = j;
+                    break;
+                }
+                if (target == -2 || (! floor && y + 1 > map.downRight.y() && target >= 0)) {
+                    falling[i] = NONE;
+                    changes[1]++;
+                } else if (target >= 0) {
+                    falling[i] = NONE;
+                    falling[target] = GRAIN;
+                    changes[2]++;
+                    changes[3] = Math.max(changes[3], y + 1);
+                } else if (! waiting) {
+                    falling[i] = NONE;
+                    cells[i] = SAND_CELL;
+                    changes[0]++;
+                }
+            }
+        }
+        return changes;
+    }
+
+    // Snapshot: magic, tick, width, height, xmin, then two bits per cell for air, rock, sand and
+    // falling sand, four cells per byte in row-major order
+    private void writeSnapshot(DataOutputStream out) throws IOException {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeLong(tick);
+        out.writeInt(map.width);
+        out.writeInt(map.height);
+        out.writeInt(map.xmin);
+        byte[] packed = new byte[(map.cells.length + 3) / 4];
+        for (int i = 0; i < map.cells.length; i++) {
+            int value = falling[i] != NONE ? 3 : map.cells[i] == AIR_CELL ? 0 : map.cells[i] == SAND_CELL ? 2 : 1;
+            packed[i >>> 2] |= (byte) (value << ((i & 3) * 2));
+        }
+        out.write(packed);
+    }
+}
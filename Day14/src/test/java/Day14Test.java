@@ -0,0 +1,225 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Day14Test {
+
+    private static final Path TEST_INPUT = Path.of("inputtest.txt");
+    private static final Path INPUT = Path.of("input.txt");
+
+    // Random rock paths below the source, some of them single points
+    static List<String> randomCave(Random random) {
+        var lines = new ArrayList<String>();
+        int paths = 5 + random.nextInt(20);
+        for (int i = 0; i < paths; i++) {
+            int x = 480 + random.nextInt(40);
+            int y = 2 + random.nextInt(30);
+            var line = new StringBuilder().append(x).append(',').append(y);
+            int segments = random.nextInt(4);
+            for (int s = 0; s < segments; s++) {
+                if (random.nextBoolean()) {
+                    x += random.nextInt(9) - 4;
+                } else {
+                    y += random.nextInt(5);
+                }
+                line.append(" -> ").append(x).append(',').append(y);
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private static Map<Day14.Position, Day14.ItemType> rocks(Path path) throws IOException {
+        return Day14.createCaveMap(Files.readAllLines(path));
+    }
+
+    private static void assertSameCells(Day14.CaveMap expected, Day14.GridCaveMap actual) {
+        for (int y = 0; y < actual.height; y++) {
+            for (int x = actual.xmin; x < actual.xmin + actual.width; x++) {
+                var p = new Day14.Position(x, y);
+                assertEquals(expected.findItemType(p), actual.findItemType(p), p.toString());
+            }
+        }
+    }
+
+    @Test
+    void exercisesOnTestInput() throws IOException {
+        var map = new Day14.CaveMap(rocks(TEST_INPUT));
+        Day14.processSand(map);
+        assertEquals(24, map.count(Day14.ItemType.SAND));
+
+        var floor = new Day14.CaveMapWithFloor(rocks(TEST_INPUT));
+        Day14.processSand(floor);
+        assertEquals(93, floor.count(Day14.ItemType.SAND));
+        assertEquals(93, floor.metrics().grainsSettled());
+    }
+
+    @Test
+    void gridMatchesHashMap() throws IOException {
+        for (var path : List.of(TEST_INPUT, INPUT)) {
+            var hash = new Day14.CaveMap(rocks(path));
+            var grid = new Day14.GridCaveMap(rocks(path));
+            assertSameCells(hash, grid);
+            assertEquals(hash.count(Day14.ItemType.ROCK), grid.count(Day14.ItemType.ROCK));
+            Day14.processSand(hash);
+            Day14.processSand(grid);
+            assertEquals(hash.count(Day14.ItemType.SAND), grid.count(Day14.ItemType.SAND), path.toString());
+            assertSameCells(hash, grid);
+
+            var hashFloor = new Day14.CaveMapWithFloor(rocks(path));
+            var gridFloor = new Day14.GridCaveMapWithFloor(rocks(path));
+            Day14.processSand(hashFloor);
+            Day14.processSand(gridFloor);
+            assertEquals(hashFloor.count(Day14.ItemType.SAND), gridFloor.count(Day14.ItemType.SAND), path.toString());
+            assertSameCells(hashFloor, gridFloor);
+
+            for (var map : List.of(hash, grid, hashFloor, gridFloor)) {
+                assertThrows(IllegalArgumentException.class, () -> map.count(Day14.ItemType.AIR));
+            }
+        }
+    }
+
+    @Test
+    void memoMatchesProcessSand() throws IOException {
+        var caves = new ArrayList<Map<Day14.Position, Day14.ItemType>>();
+        caves.add(rocks(TEST_INPUT));
+        caves.add(rocks(INPUT));
+        var random = new Random(12);
+        for (int i = 0; i < 20; i++) {
+            caves.add(Day14.createCaveMap(randomCave(random)));
+        }
+        for (var rocks : caves) {
+            var simple = new Day14.GridCaveMap(rocks);
+            var memo = new Day14.GridCaveMap(rocks);
+            Day14.processSand(simple);
+            Day14.processSandMemo(memo);
+            assertArrayEquals(simple.cells, memo.cells);
+
+            var simpleFloor = new Day14.GridCaveMapWithFloor(rocks);
+            var memoFloor = new Day14.GridCaveMapWithFloor(rocks);
+            Day14.processSand(simpleFloor);
+            Day14.processSandMemo(memoFloor);
+            assertArrayEquals(simpleFloor.cells, memoFloor.cells);
+
+            var hashMemo = new Day14.CaveMapWithFloor(rocks);
+            Day14.processSandMemo(hashMemo);
+            assertEquals(simpleFloor.count(Day14.ItemType.SAND), hashMemo.count(Day14.ItemType.SAND));
+        }
+    }
+
+    @Test
+    void closedFormMatchesProcessSand() throws IOException {
+        var paths = new ArrayList<>(List.of(TEST_INPUT, INPUT));
+        var random = new Random(13);
+        for (int i = 0; i < 20; i++) {
+            var path = Files.createTempFile("day14", ".txt");
+            Files.write(path, randomCave(random));
+            paths.add(path);
+        }
+        try {
+            for (var path : paths) {
+                var rocks = rocks(path);
+                // The hash map settles sand into the map it is given
+                var map = new Day14.CaveMapWithFloor(new HashMap<>(rocks));
+                Day14.processSand(map);
+                long expected = map.count(Day14.ItemType.SAND);
+                assertEquals(expected, Day14.solveFloor(rocks), path.toString());
+                assertEquals(expected, Day14.solveFloor(new Day14.GridCaveMap(rocks)), path.toString());
+                for (var backend : List.of("hash", "grid", "nio")) {
+                    assertEquals(expected, Day14.solveFloor(path, backend), path + " " + backend);
+                }
+            }
+            assertEquals(93, Day14.solveFloor(TEST_INPUT, "grid"));
+        } finally {
+            for (var path : paths.subList(2, paths.size())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void rockScanMatchesCreateCaveMap() throws IOException {
+        var paths = new ArrayList<>(List.of(TEST_INPUT, INPUT));
+        var random = new Random(14);
+        for (int i = 0; i < 10; i++) {
+            var path = Files.createTempFile("day14", ".txt");
+            Files.write(path, randomCave(random));
+            paths.add(path);
+        }
+        try {
+            for (var path : paths) {
+                for (boolean floor : new boolean[] {false, true}) {
+                    var rocks = rocks(path);
+                    var expected = floor ? new Day14.GridCaveMapWithFloor(rocks) : new Day14.GridCaveMap(rocks);
+                    var scanned = Day14.scanCaveMap(path, floor);
+                    assertEquals(expected.xmin, scanned.xmin, path.toString());
+                    assertEquals(expected.width, scanned.width, path.toString());
+                    assertEquals(expected.height, scanned.height, path.toString());
+                    assertArrayEquals(expected.cells, scanned.cells, path.toString());
+                    assertEquals(rocks.size(), scanned.count(Day14.ItemType.ROCK));
+                }
+            }
+        } finally {
+            for (var path : paths.subList(2, paths.size())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void assertRendersAs(List<String> expected, Day14.GridCaveMap map) throws IOException {
+        var renderer = new CaveRenderer(map);
+        assertEquals(expected.get(0).length(), renderer.width());
+        assertEquals(expected.size(), renderer.height());
+        var path = Files.createTempFile("day14", ".txt");
+        try {
+            renderer.write(path);
+            assertEquals(expected, Files.readAllLines(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void rendersExampleAsAscii() throws IOException {
+        var map = new Day14.GridCaveMap(rocks(TEST_INPUT));
+        Day14.processSand(map);
+        assertRendersAs(List.of(
+                "......+...",
+                "..........",
+                "......o...",
+                ".....ooo..",
+                "....#ooo##",
+                "...o#ooo#.",
+                "..###ooo#.",
+                "....oooo#.",
+                ".o.ooooo#.",
+                "#########.",
+                ".........."), map);
+
+        // The pile covers the source, and the floor is the extra last row
+        var floor = new Day14.GridCaveMapWithFloor(rocks(TEST_INPUT));
+        Day14.processSand(floor);
+        assertRendersAs(List.of(
+                "...........o...........",
+                "..........ooo..........",
+                ".........ooooo.........",
+                "........ooooooo........",
+                ".......oo#ooo##o.......",
+                "......ooo#ooo#ooo......",
+                ".....oo###ooo#oooo.....",
+                "....oooo.oooo#ooooo....",
+                "...oooooooooo#oooooo...",
+                "..ooo#########ooooooo..",
+                ".ooooo.......ooooooooo.",
+                "#######################"), floor);
+    }
+}
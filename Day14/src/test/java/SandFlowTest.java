@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SandFlowTest {
+
+    private static final List<Day14.Position> SOURCES = List.of(new Day14.Position(500, 0), new Day14.Position(500, 1));
+
+    private static Day14.GridCaveMap cave(boolean floor) throws IOException {
+        return cave(Path.of("inputtest.txt"), floor);
+    }
+
+    private static Day14.GridCaveMap cave(Path path, boolean floor) throws IOException {
+        var rocks = Day14.createCaveMap(Files.readAllLines(path));
+        return floor ? new Day14.GridCaveMapWithFloor(rocks) : new Day14.GridCaveMap(rocks);
+    }
+
+    @Test
+    void bandHeightDoesNotChangeTicks() throws IOException {
+        for (boolean floor : new boolean[] {false, true}) {
+            for (int bandHeight : new int[] {1, 16}) {
+                var map = cave(Path.of("input.txt"), floor);
+                var flow = new SandFlow(map, SOURCES, bandHeight);
+                var expected = cave(Path.of("input.txt"), floor);
+                var expectedFlow = new SandFlow(expected, SOURCES, expected.height);
+                for (int tick = 0; tick < 200; tick++) {
+                    assertEquals(expectedFlow.step(), flow.step());
+                    assertEquals(expectedFlow.settled(), flow.settled(), "tick " + flow.tick());
+                    assertEquals(expectedFlow.lost(), flow.lost(), "tick " + flow.tick());
+                    assertEquals(expectedFlow.inFlight(), flow.inFlight(), "tick " + flow.tick());
+                    assertArrayEquals(expected.cells, map.cells, "tick " + flow.tick());
+                }
+            }
+        }
+    }
+
+    @Test
+    void bandHeightDoesNotChangeSnapshots() throws IOException {
+        for (boolean floor : new boolean[] {false, true}) {
+            byte[] expected = null;
+            long[] expectedCounts = null;
+            for (int bandHeight : new int[] {1, 16, 0}) {
+                var map = cave(floor);
+                if (bandHeight == 0) {
+                    bandHeight = map.height;
+                }
+                var flow = new SandFlow(map, SOURCES, bandHeight);
+                var snapshots = Files.createTempFile("flow", ".bin");
+                try {
+                    flow.run(1, snapshots);
+                    byte[] actual = Files.readAllBytes(snapshots);
+                    long[] counts = {flow.tick(), flow.settled(), flow.lost(), flow.inFlight()};
+                    if (expected == null) {
+                        expected = actual;
+                        expectedCounts = counts;
+                    } else {
+                        assertArrayEquals(expectedCounts, counts, "band height " + bandHeight);
+                        assertArrayEquals(expected, actual, "band height " + bandHeight);
+                    }
+                } finally {
+                    Files.delete(snapshots);
+                }
+            }
+        }
+    }
+
+    @Test
+    void floorFillsToSources() throws IOException {
+        var map = cave(true);
+        var flow = new SandFlow(map, List.of(Day14.START_POSITION), 4);
+        flow.run(0, null);
+        assertEquals(93, flow.settled());
+        assertEquals(93, map.count(Day14.ItemType.SAND));
+        assertEquals(93, map.metrics().grainsSettled());
+        assertEquals(0, flow.lost());
+        assertEquals(0, flow.inFlight());
+    }
+}
@@ -0,0 +1,122 @@
+package erinyq;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Position.length() and the distance helpers over COUNT pairs of positions, each next to the
+// allocating abs() and subtract() path they replaced, plus the perimeter search that uses them.
+// Run with -prof gc to see whether the old path still allocates once it is compiled.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionBenchmark {
+
+    static final int COUNT = 1024;
+
+    Position[] first;
+    Position[] second;
+    long[] x1;
+    long[] y1;
+    long[] x2;
+    long[] y2;
+
+    @Setup
+    public void setup() {
+        var random = new Random(8);
+        first = new Position[COUNT];
+        second = new Position[COUNT];
+        x1 = new long[COUNT];
+        y1 = new long[COUNT];
+        x2 = new long[COUNT];
+        y2 = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            x1[i] = random.nextLong(-SensorGenerator.MAX, SensorGenerator.MAX);
+            y1[i] = random.nextLong(-SensorGenerator.MAX, SensorGenerator.MAX);
+            x2[i] = random.nextLong(-SensorGenerator.MAX, SensorGenerator.MAX);
+            y2[i] = random.nextLong(-SensorGenerator.MAX, SensorGenerator.MAX);
+            first[i] = new Position(x1[i], y1[i]);
+            second[i] = new Position(x2[i], y2[i]);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Sensors {
+        @Param({"10", "100", "1000"})
+        int sensors;
+
+        Map<Position, Position> generated;
+
+        @Setup
+        public void setup() {
+            generated = SensorGenerator.generate(sensors, SensorGenerator.MAX, 15);
+        }
+    }
+
+    @Benchmark
+    public long allocatingLength() {
+        long sum = 0;
+        for (var p : first) {
+            var abs = p.abs();
+            sum += abs.x() + abs.y();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long length() {
+        long sum = 0;
+        for (var p : first) {
+            sum += p.length();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long allocatingDistance() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            var abs = first[i].subtract(second[i]).abs();
+            sum += abs.x() + abs.y();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long distance() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += first[i].distance(second[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long staticDistance() {
+        long sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += Position.distance(x1[i], y1[i], x2[i], y2[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public boolean perimeterSearch(Sensors sensors) {
+        return new PerimeterSearch(sensors.generated).find(SensorGenerator.MAX).isPresent();
+    }
+}
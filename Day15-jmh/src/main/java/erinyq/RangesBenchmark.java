@@ -0,0 +1,103 @@
+package erinyq;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangesBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    int sensors;
+
+    List<Range> rowRanges;
+    long[] starts;
+    long[] ends;
+    Ranges merged;
+    LongIntervalSet mergedSet;
+    Range window;
+
+    @Setup
+    public void setup() {
+        var generated = SensorGenerator.generate(sensors, SensorGenerator.MAX, 15);
+        rowRanges = SensorGenerator.rowRanges(generated, SensorGenerator.MAX / 2);
+        starts = rowRanges.stream().mapToLong(Range::start).toArray();
+        ends = rowRanges.stream().mapToLong(Range::endExclusive).toArray();
+        merged = new Ranges(rowRanges);
+        mergedSet = new LongIntervalSet();
+        for (int i = 0; i < starts.length; i++) {
+            mergedSet.add(starts[i], ends[i]);
+        }
+        window = new Range(0L, SensorGenerator.MAX);
+    }
+
+    @State(Scope.Thread)
+    public static class Unmerged {
+        Ranges ranges;
+
+        @Setup(Level.Invocation)
+        public void setup(RangesBenchmark benchmark) {
+            ranges = new Ranges();
+            benchmark.rowRanges.forEach(ranges::append);
+        }
+    }
+
+    @Benchmark
+    public Ranges rangesAddAll() {
+        var ranges = new Ranges();
+        ranges.addAll(rowRanges);
+        return ranges;
+    }
+
+    @Benchmark
+    public Ranges rangesMerge(Unmerged unmerged) {
+        unmerged.ranges.merge();
+        return unmerged.ranges;
+    }
+
+    @Benchmark
+    public Ranges rangesDifference() {
+        return merged.difference();
+    }
+
+    @Benchmark
+    public Ranges rangesIntersection() {
+        return merged.difference().intersection(window);
+    }
+
+    @Benchmark
+    public LongIntervalSet intervalSetAdd() {
+        var set = new LongIntervalSet();
+        for (int i = 0; i < starts.length; i++) {
+            set.add(starts[i], ends[i]);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public LongIntervalSet intervalSetDifference() {
+        return mergedSet.difference();
+    }
+
+    @Benchmark
+    public LongIntervalSet intervalSetIntersection() {
+        return mergedSet.difference().intersection(0L, SensorGenerator.MAX);
+    }
+}
@@ -0,0 +1,71 @@
+package erinyq;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Scans a window of ROWS rows the way Day15.execise2 does, once on the original
+// Ranges/List<Range> path and once on SensorIndex with a reused LongIntervalSet
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowScanBenchmark {
+
+    static final long ROWS = 1000;
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    int sensors;
+
+    Map<Position, Position> generated;
+    SensorIndex index;
+    LongIntervalSet ranges;
+    LongIntervalSet diff;
+    LongIntervalSet gaps;
+
+    @Setup
+    public void setup() {
+        generated = SensorGenerator.generate(sensors, SensorGenerator.MAX, 15);
+        index = new SensorIndex(generated);
+        ranges = new LongIntervalSet();
+        diff = new LongIntervalSet();
+        gaps = new LongIntervalSet();
+    }
+
+    @Benchmark
+    public long rangesScan() {
+        long found = 0;
+        long first = SensorGenerator.MAX / 2;
+        for (long y = first; y < first + ROWS; y++) {
+            var rowRanges = new Ranges(SensorGenerator.rowRanges(generated, y));
+            var union = rowRanges.difference().intersection(new Range(0L, SensorGenerator.MAX));
+            found += union.getRanges().size();
+        }
+        return found;
+    }
+
+    @Benchmark
+    public long indexScan() {
+        long found = 0;
+        long first = SensorGenerator.MAX / 2;
+        for (long y = first; y < first + ROWS; y++) {
+            index.rowCoverage(y, 0, SensorGenerator.MAX, ranges);
+            ranges.difference(diff);
+            found += diff.intersection(0L, SensorGenerator.MAX, gaps).size();
+        }
+        return found;
+    }
+}
@@ -0,0 +1,35 @@
+package erinyq;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class SensorGenerator {
+
+    public static final long MAX = 4000000;
+
+    // Sensors spread over [0, max) x [0, max) with radii large enough for neighbouring diamonds to overlap
+    public static Map<Position, Position> generate(int count, long max, long seed) {
+        var random = new Random(seed);
+        long reach = Math.max(2, (long) (2 * max / Math.sqrt(count)));
+        Map<Position, Position> sensors = new HashMap<>();
+        while (sensors.size() < count) {
+            var sensor = new Position(random.nextLong(max), random.nextLong(max));
+            sensors.put(sensor, new Position(random.nextLong(reach), random.nextLong(reach)));
+        }
+        return sensors;
+    }
+
+    public static List<Range> rowRanges(Map<Position, Position> sensors, long row) {
+        var ranges = new ArrayList<Range>();
+        for (var e : sensors.entrySet()) {
+            var xdiff = e.getValue().length() - Math.abs(e.getKey().y() - row);
+            if (xdiff >= 0) {
+                ranges.add(new Range(e.getKey().x() - xdiff, e.getKey().x() + xdiff + 1));
+            }
+        }
+        return ranges;
+    }
+}
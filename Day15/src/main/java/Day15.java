@@ -1,22 +1,33 @@
+import erinyq.BatchCoverage;
+import erinyq.CoverageRaster;
+import erinyq.GapEnumerator;
+import erinyq.LineFeed;
+import erinyq.LongIntervalSet;
+import erinyq.PerimeterSearch;
 import erinyq.Position;
-import erinyq.Range;
-import erinyq.Ranges;
+import erinyq.RowCoverage;
+import erinyq.SensorIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
-import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
@@ -27,15 +38,34 @@ public class Day15 {
         try {
             var path = args.length > 0 ? Path.of(args[0]) : Path.of("input.txt");
             long max = args.length > 1 ? Long.parseLong(args[1]): 4000000;
+            var mode = args.length > 2 ? args[2] : "perimeter";
             // var path = args.length > 0 ? Path.of(args[0]) : Path.of("inputtest.txt");
             // long max = args.length > 1 ? Long.parseLong(args[1]): 20;
-            if (Files.exists(path)) {
+            if (mode.equals("stream") || mode.equals("follow")) {
+                var stdin = args.length > 0 && args[0].equals("-");
+                try (var reader = stdin ? new BufferedReader(new InputStreamReader(System.in)) : Files.newBufferedReader(path)) {
+                    execise1Stream(max, reader, mode.equals("follow") && ! stdin && isGrowable(path));
+                }
+            } else if (Files.exists(path)) {
                 List<String> lines = Files.readAllLines(path).stream()
                         .collect(ArrayList::new,
                                 ArrayList::add,
                                 ArrayList::addAll);
                 execise1(max, lines);
-                execise2(max, lines);
+                switch (mode) {
+                    case "scan" -> execise2(max, lines);
+                    case "parallel" -> execise2Parallel(max, lines);
+                    case "gaps" -> enumerateGaps(max, lines, args.length > 3 ? Long.parseLong(args[3]) : 100,
+                            args.length > 4 && args[4].equals("area"));
+                    case "rows" -> queryRows(max, lines, args.length > 3 ? args[3] : "");
+                    case "raster" -> exportRaster(max, lines, args.length > 3 ? Path.of(args[3]) : Path.of("coverage.pgm"),
+                            args.length > 4 ? Integer.parseInt(args[4]) : 4000);
+                    case "compare" -> {
+                        execise2(max, lines);
+                        execise2Perimeter(max, lines);
+                    }
+                    default -> execise2Perimeter(max, lines);
+                }
 
             }
         } catch (IOException e) {
@@ -56,32 +86,77 @@ public class Day15 {
         Set<Position> beacons = new HashSet<>();
         parseInput(lines, sensors, beacons);
 
-        var sensorPositions = getSensorPositions(line, sensors);
-        Ranges ranges = new Ranges(sensorPositions);
-        var positions = ranges.getRanges().stream().mapToLong(r -> r.endExclusive()-r.start()).sum()-beacons.stream().filter(r->r.y()==line).count();
+        var ranges = getSensorPositions(line, new SensorIndex(sensors), new LongIntervalSet());
+        var positions = ranges.totalLength()-beacons.stream().filter(r->r.y()==line).count();
         log.info("Number of non-beacon spaces: {}", positions);
     }
 
-    private static List<Range> getSensorPositions(long line, Map<Position, Position> sensors) {
-        return sensors.entrySet().stream().filter(e -> isInRange(line, e)).map(sp -> {
-            var ydiff = abs(sp.getKey().y() - line);
-            var xdiff = sp.getValue().length() - ydiff;
-            var start = sp.getKey().x() - xdiff;
-            var endExclusive = sp.getKey().x() + xdiff + 1;
-            return new Range(start, endExclusive);
-        }).toList();
+    private static final long POLL_MILLIS = 500;
+
+    // Only a regular file can get more lines after its end; stdin and pipes are done at EOF
+    static boolean isGrowable(Path path) {
+        return ! path.toString().equals("-") && Files.isRegularFile(path);
+    }
+
+    // Lines are only parsed once their newline has arrived, so a sensor appended in pieces while
+    // following is counted once it is complete
+    static RowCoverage execise1Stream(final long line, Reader reader, boolean follow) throws IOException {
+        var coverage = new RowCoverage(line);
+        var feed = new LineFeed(reader);
+        int batch = 0;
+        while (true) {
+            var lines = feed.read();
+            boolean end = lines == null;
+            if (end && ! follow) {
+                lines = feed.rest().isEmpty() ? List.of() : List.of(feed.rest());
+            }
+            if (lines != null) {
+                for (var l : lines) {
+                    if (addSensor(coverage, l)) {
+                        batch++;
+                    }
+                }
+                if (! end && feed.ready()) {
+                    continue;
+                }
+            }
+            if (batch > 0) {
+                log.info("Sensors: {}, number of non-beacon spaces: {}", coverage.sensors(), coverage.nonBeaconCount());
+                batch = 0;
+            }
+            if (end) {
+                if (! follow) {
+                    return coverage;
+                }
+                try {
+                    Thread.sleep(POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return coverage;
+                }
+            }
+        }
     }
 
-    private static List<Range> getSensorPositions(long line, Map<Position, Position> sensors, long max) {
-        return sensors.entrySet().stream().filter(e -> isInRange(line, e)).map(sp -> {
-            var ydiff = abs(sp.getKey().y() - line);
-            var xdiff = sp.getValue().length() - ydiff;
-            var start = max(0,sp.getKey().x() - xdiff);
-            var endExclusive = min(max, sp.getKey().x() + xdiff + 1);
-            return start < endExclusive ? new Range(start, endExclusive) : null;
-        }).filter(Objects::nonNull).toList();
+    private static boolean addSensor(RowCoverage coverage, String l) {
+        var matcher = rowPattern.matcher(l);
+        if (! matcher.matches()) {
+            return false;
+        }
+        coverage.add(Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)),
+                Long.parseLong(matcher.group(3)), Long.parseLong(matcher.group(4)));
+        return true;
     }
-    private static void parseInput(List<String> lines, Map<Position, Position> sensors, Set<Position> beacons) {
+
+    private static LongIntervalSet getSensorPositions(long line, SensorIndex sensors, LongIntervalSet ranges) {
+        return sensors.rowCoverage(line, ranges);
+    }
+
+    private static LongIntervalSet getSensorPositions(long line, SensorIndex sensors, long max, LongIntervalSet ranges) {
+        return sensors.rowCoverage(line, 0, max, ranges);
+    }
+
+    static void parseInput(List<String> lines, Map<Position, Position> sensors, Set<Position> beacons) {
         lines.stream().forEach(l -> {
             var matcher = rowPattern.matcher(l);
             if (matcher.matches()) {
@@ -98,45 +173,175 @@ public class Day15 {
         });
     }
 
-    private static boolean isInRange(long line, Map.Entry<Position, Position> e) {
-        return abs(e.getKey().y()-line) <= e.getValue().length();
+    private static Position createPosition(long x, long y) {
+        return new Position(x,y);
     }
 
-    private static boolean isInRange(Position p, Map.Entry<Position, Position> e) {
-        var diff = e.getKey().subtract(p);
-        var distance = diff.length();
-        return e.getValue().length() >= distance;
+    private static void execise2(long max, List<String> lines) {
+        final Map<Position, Position> sensors = new HashMap<>();
+        final Set<Position> beacons = new HashSet<>();
+        parseInput(lines, sensors, beacons);
+
+        var result = new ArrayList<Position>();
+        var found = new GapEnumerator(new SensorIndex(sensors), max).enumerate(2, (y, start, endExclusive) -> {
+            if (endExclusive - start == 1) {
+                result.add(new Position(start, y));
+            }
+        });
+        if (found == 1 && result.size() == 1) {
+            var signal = result.get(0).x() * 4000000 + result.get(0).y();
+            log.info("Result: {}", signal);
+        } else {
+            log.info("No single uncovered position, found {} uncovered spans", found);
+        }
     }
 
-    private static Position createPosition(long x, long y) {
-        return new Position(x,y);
+    // An enumeration that ends below the limit has seen every span, so the area is their sum;
+    // after stopping early the area takes a full sweep and is only computed when asked for
+    private static void enumerateGaps(long max, List<String> lines, long limit, boolean area) {
+        final Map<Position, Position> sensors = new HashMap<>();
+        final Set<Position> beacons = new HashSet<>();
+        parseInput(lines, sensors, beacons);
+
+        var enumerator = new GapEnumerator(new SensorIndex(sensors), max);
+        long[] listed = new long[1];
+        var found = enumerator.enumerate(limit, (y, start, endExclusive) -> {
+            log.info("Gap at y={}: x={}..{}", y, start, endExclusive - 1);
+            listed[0] += endExclusive - start;
+        });
+        log.info("Uncovered spans listed: {}{}", found, found == limit ? " (limit reached)" : "");
+        if (found < limit) {
+            log.info("Total uncovered area: {}", listed[0]);
+        } else if (area) {
+            log.info("Total uncovered area: {}", enumerator.uncoveredArea());
+        } else {
+            log.info("Uncovered area listed: {}, pass 'area' after the limit for the total", listed[0]);
+        }
     }
 
-    private static void execise2(long max, List<String> lines) {
+    private static void execise2Perimeter(long max, List<String> lines) {
         final Map<Position, Position> sensors = new HashMap<>();
         final Set<Position> beacons = new HashSet<>();
         parseInput(lines, sensors, beacons);
 
-        var allRanges = new HashMap<Long, List<Range>>();
-        for(long y = 0; y < max; y++) {
-            final long fy = y;
-            var ranges = new Ranges();
-            var sensorPositions = getSensorPositions(fy, sensors, max);
-            ranges.addAll(sensorPositions);
-            if (ranges.getRanges().size() > 1) {
-                log.debug("Ranges found: {}", y);
+        var result = new PerimeterSearch(sensors).find(max);
+        if (result.isPresent()) {
+            var signal = result.get().x() * 4000000 + result.get().y();
+            log.info("Result: {}", signal);
+        } else {
+            log.info("No uncovered position found");
+        }
+    }
+
+    private static void execise2Parallel(long max, List<String> lines) {
+        final Map<Position, Position> sensors = new HashMap<>();
+        final Set<Position> beacons = new HashSet<>();
+        parseInput(lines, sensors, beacons);
+
+        var index = new SensorIndex(sensors);
+        int cores = Runtime.getRuntime().availableProcessors();
+        var result = sweepRows(max, index, cores);
+        if (result != null) {
+            var signal = result.x() * 4000000 + result.y();
+            log.info("Result: {}", signal);
+        } else {
+            log.info("No uncovered position found");
+        }
+
+        long single = 0;
+        for (int parallelism = 1; ; parallelism = min(parallelism * 2, cores)) {
+            long start = System.nanoTime();
+            sweepRows(max, index, parallelism);
+            long elapsed = System.nanoTime() - start;
+            if (parallelism == 1) {
+                single = elapsed;
             }
-            var diff = ranges.difference();
-            var union = diff.intersection(new Range(0L, max));
-            if (! union.getRanges().isEmpty()) {
-                allRanges.put(y, union.getRanges());
+            log.info("Parallelism {}: {} ms, speedup {}", parallelism, elapsed / 1_000_000, String.format("%.2f", (double) single / elapsed));
+            if (parallelism == cores) {
+                break;
             }
         }
-        var result = allRanges.entrySet().stream().filter(es -> ! es.getValue().isEmpty()).toList();
-        if (result.size() == 1) {
-            var range = result.get(0);
-            var signal = range.getValue().get(0).start() * 4000000 + range.getKey();
-            log.info("Result: {}", signal);
+    }
+
+    static Position sweepRows(long max, SensorIndex sensors, int parallelism) {
+        var found = new AtomicReference<Position>();
+        var pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RowSweep(0, max, max, sensors, found));
+        } finally {
+            pool.shutdown();
         }
+        return found.get();
+    }
+
+    static class RowSweep extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final long ROWS_PER_TASK = 8192;
+        private static final ThreadLocal<LongIntervalSet> buffers = ThreadLocal.withInitial(LongIntervalSet::new);
+
+        private final long from;
+        private final long to;
+        private final long max;
+        private final SensorIndex sensors;
+        private final AtomicReference<Position> found;
+
+        RowSweep(long from, long to, long max, SensorIndex sensors, AtomicReference<Position> found) {
+            this.from = from;
+            this.to = to;
+            this.max = max;
+            this.sensors = sensors;
+            this.found = found;
+        }
+
+        @Override
+        protected void compute() {
+            if (found.get() != null) {
+                return;
+            }
+            if (to - from > ROWS_PER_TASK) {
+                long mid = from + (to - from) / 2;
+                invokeAll(new RowSweep(from, mid, max, sensors, found), new RowSweep(mid, to, max, sensors, found));
+                return;
+            }
+            var ranges = buffers.get();
+            for (long y = from; y < to && found.get() == null; y++) {
+                long x = firstGap(getSensorPositions(y, sensors, max, ranges));
+                if (x < max) {
+                    found.compareAndSet(null, new Position(x, y));
+                }
+            }
+        }
+
+        // The first x of [0, max) outside the ranges, which are clipped to [0, max), or max when
+        // the whole row is covered; an empty row has its gap at 0
+        private static long firstGap(LongIntervalSet ranges) {
+            long x = 0;
+            for (int i = 0; i < ranges.size() && ranges.start(i) <= x; i++) {
+                x = max(x, ranges.endExclusive(i));
+            }
+            return x;
+        }
+    }
+
+    private static void queryRows(long max, List<String> lines, String rowList) {
+        final Map<Position, Position> sensors = new HashMap<>();
+        final Set<Position> beacons = new HashSet<>();
+        parseInput(lines, sensors, beacons);
+
+        long[] rows = Arrays.stream(rowList.split(",")).filter(r -> ! r.isBlank()).mapToLong(r -> Long.parseLong(r.trim())).toArray();
+        var results = new BatchCoverage(new SensorIndex(sensors), 0, max).coverage(rows);
+        for (var result : results) {
+            log.info("Row {}: covered {}, gaps {}", result.row(), result.covered(), result.gaps());
+        }
+    }
+
+    private static void exportRaster(long max, List<String> lines, Path output, int size) throws IOException {
+        final Map<Position, Position> sensors = new HashMap<>();
+        final Set<Position> beacons = new HashSet<>();
+        parseInput(lines, sensors, beacons);
+
+        long start = System.nanoTime();
+        new CoverageRaster(new SensorIndex(sensors), max).exportPgm(output, size, size);
+        log.info("Coverage raster {}x{} written to {} in {} ms", size, size, output, (System.nanoTime() - start) / 1_000_000);
     }
 }
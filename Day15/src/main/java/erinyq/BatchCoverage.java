@@ -0,0 +1,79 @@
+package erinyq;
+
+import java.util.Arrays;
+
+public class BatchCoverage {
+
+    public record Result(long row, long covered, LongIntervalSet gaps) {
+    }
+
+    private final SensorIndex sensors;
+    private final long min;
+    private final long maxExclusive;
+
+    public BatchCoverage(SensorIndex sensors, long min, long maxExclusive) {
+        this.sensors = sensors;
+        this.min = min;
+        this.maxExclusive = maxExclusive;
+    }
+
+    // Gaps are the uncovered spans inside [min, maxExclusive), including those at either edge
+    public Result[] coverage(long[] rows) {
+        long[] sorted = rows.clone();
+        Arrays.sort(sorted);
+
+        // Sensors enter in index order since the index is sorted on first row, and
+        // leave lazily once the sweep passes their last row
+        var results = new Result[sorted.length];
+        int[] active = new int[sensors.size()];
+        int activeCount = 0;
+        int next = 0;
+        var ranges = new LongIntervalSet();
+        for (int r = 0; r < sorted.length; r++) {
+            long row = sorted[r];
+            if (r > 0 && sorted[r - 1] == row) {
+                results[r] = results[r - 1];
+                continue;
+            }
+            while (next < sensors.size() && sensors.firstRow(next) <= row) {
+                active[activeCount++] = next++;
+            }
+            ranges.clear();
+            for (int i = 0; i < activeCount; i++) {
+                int s = active[i];
+                if (sensors.lastRow(s) < row) {
+                    active[i--] = active[--activeCount];
+                    continue;
+                }
+                long xdiff = sensors.radius(s) - Math.abs(sensors.y(s) - row);
+                long start = Math.max(min, sensors.x(s) - xdiff);
+                long end = Math.min(maxExclusive, sensors.x(s) + xdiff + 1);
+                if (start < end) {
+                    ranges.add(start, end);
+                }
+            }
+            results[r] = new Result(row, ranges.totalLength(), gaps(ranges));
+        }
+
+        var ordered = new Result[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            ordered[i] = results[Arrays.binarySearch(sorted, rows[i])];
+        }
+        return ordered;
+    }
+
+    private LongIntervalSet gaps(LongIntervalSet ranges) {
+        var gaps = new LongIntervalSet(ranges.size() + 1);
+        long start = min;
+        for (int i = 0; i < ranges.size(); i++) {
+            if (start < ranges.start(i)) {
+                gaps.add(start, ranges.start(i));
+            }
+            start = ranges.endExclusive(i);
+        }
+        if (start < maxExclusive) {
+            gaps.add(start, maxExclusive);
+        }
+        return gaps;
+    }
+}
@@ -0,0 +1,73 @@
+package erinyq;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+public class CoverageRaster {
+
+    private static class RowBuffers {
+        final LongIntervalSet ranges = new LongIntervalSet();
+        byte[] line = new byte[0];
+    }
+
+    private static final ThreadLocal<RowBuffers> buffers = ThreadLocal.withInitial(RowBuffers::new);
+
+    private final SensorIndex sensors;
+    private final long max;
+
+    public CoverageRaster(SensorIndex sensors, long max) {
+        this.sensors = sensors;
+        this.max = max;
+    }
+
+    // Writes a binary PGM where each pixel is the uncovered share of its span of [0, max) on the
+    // first world row of its pixel row, 0 for fully covered and 255 for fully uncovered
+    public void exportPgm(Path path, int width, int height) throws IOException {
+        var header = ("P5\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII);
+        long size = header.length + (long) width * height;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Raster too large: " + width + "x" + height);
+        }
+        try (var channel = FileChannel.open(path, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            MappedByteBuffer raster = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            raster.put(0, header);
+            IntStream.range(0, height).parallel().forEach(py -> {
+                var b = buffers.get();
+                if (b.line.length != width) {
+                    b.line = new byte[width];
+                }
+                renderRow(py * max / height, width, b.ranges, b.line);
+                raster.put(header.length + py * width, b.line);
+            });
+            raster.force();
+        }
+    }
+
+    void renderRow(long row, int width, LongIntervalSet ranges, byte[] line) {
+        sensors.rowCoverage(row, 0, max, ranges);
+        int i = 0;
+        for (int px = 0; px < width; px++) {
+            long from = px * max / width;
+            long to = (px + 1) * max / width;
+            long covered = 0;
+            while (i < ranges.size() && ranges.endExclusive(i) <= from) {
+                i++;
+            }
+            for (int j = i; j < ranges.size() && ranges.start(j) < to; j++) {
+                covered += Math.min(to, ranges.endExclusive(j)) - Math.max(from, ranges.start(j));
+            }
+            long span = to - from;
+            long uncovered = span - covered;
+            line[px] = span == 0 ? 0 : (byte) ((255 * uncovered + span - 1) / span);
+        }
+    }
+}
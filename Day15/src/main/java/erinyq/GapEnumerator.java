@@ -0,0 +1,51 @@
+package erinyq;
+
+import java.util.stream.LongStream;
+
+public class GapEnumerator {
+
+    @FunctionalInterface
+    public interface Sink {
+        void accept(long row, long start, long endExclusive);
+    }
+
+    private static final ThreadLocal<LongIntervalSet> buffers = ThreadLocal.withInitial(LongIntervalSet::new);
+
+    private final SensorIndex sensors;
+    private final long max;
+
+    public GapEnumerator(SensorIndex sensors, long max) {
+        this.sensors = sensors;
+        this.max = max;
+    }
+
+    // Streams uncovered spans of [0, max)^2 row by row to the sink and stops after limit spans,
+    // returns the number of spans emitted
+    public long enumerate(long limit, Sink sink) {
+        var ranges = new LongIntervalSet();
+        long found = 0;
+        for (long y = 0; y < max && found < limit; y++) {
+            sensors.rowCoverage(y, 0, max, ranges);
+            long start = 0;
+            for (int i = 0; i <= ranges.size() && found < limit; i++) {
+                long end = i < ranges.size() ? ranges.start(i) : max;
+                if (start < end) {
+                    sink.accept(y, start, end);
+                    found++;
+                }
+                if (i < ranges.size()) {
+                    start = ranges.endExclusive(i);
+                }
+            }
+        }
+        return found;
+    }
+
+    // Sweeps every row of [0, max) however few spans enumerate needed, so it costs as much as
+    // enumerating without a limit
+    public long uncoveredArea() {
+        return LongStream.range(0, max).parallel()
+                .map(y -> max - sensors.rowCoverage(y, 0, max, buffers.get()).totalLength())
+                .sum();
+    }
+}
@@ -0,0 +1,52 @@
+package erinyq;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits a reader that may still be growing into lines; a line without its newline yet is held
+// back until the rest of it arrives
+public class LineFeed {
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder partial = new StringBuilder();
+
+    public LineFeed(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Returns the lines completed by one read, possibly none, or null at the current end of input
+    public List<String> read() throws IOException {
+        int n = reader.read(buffer);
+        if (n < 0) {
+            return null;
+        }
+        var lines = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            if (buffer[i] == '\n') {
+                partial.append(buffer, start, i - start);
+                int length = partial.length();
+                if (length > 0 && partial.charAt(length - 1) == '\r') {
+                    partial.setLength(length - 1);
+                }
+                lines.add(partial.toString());
+                partial.setLength(0);
+                start = i + 1;
+            }
+        }
+        partial.append(buffer, start, n - start);
+        return lines;
+    }
+
+    public boolean ready() throws IOException {
+        return reader.ready();
+    }
+
+    // The text after the last newline, e.g. a last line without one once the input has ended
+    public String rest() {
+        return partial.toString();
+    }
+}
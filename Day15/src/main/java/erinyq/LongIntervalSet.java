@@ -0,0 +1,188 @@
+package erinyq;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Sorted, coalesced intervals with the semantics of Ranges: touching intervals merge and an empty
+// interval is kept unless it touches another one. add finds the affected run in O(log n) but shifts
+// the tail of the arrays, so it is O(n) in the worst case; the sets hold a row's few dozen ranges.
+public class LongIntervalSet {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] starts;
+    private long[] ends;
+    private int size;
+
+    public LongIntervalSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public LongIntervalSet(int capacity) {
+        starts = new long[Math.max(1, capacity)];
+        ends = new long[Math.max(1, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long start(int i) {
+        return starts[i];
+    }
+
+    public long endExclusive(int i) {
+        return ends[i];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Inverted intervals, e.g. a range clipped away entirely, are ignored
+    public void add(long start, long endExclusive) {
+        if (start > endExclusive) {
+            return;
+        }
+        // Intervals touching [start, endExclusive) are lo..hi-1, touching ones are merged like Range.union
+        int lo = firstEndAtLeast(start);
+        int hi = firstStartAbove(endExclusive, lo);
+        if (lo == hi) {
+            ensureCapacity(size + 1);
+            System.arraycopy(starts, lo, starts, lo + 1, size - lo);
+            System.arraycopy(ends, lo, ends, lo + 1, size - lo);
+            starts[lo] = start;
+            ends[lo] = endExclusive;
+            size++;
+        } else {
+            starts[lo] = Math.min(start, starts[lo]);
+            ends[lo] = Math.max(endExclusive, ends[hi - 1]);
+            int removed = hi - lo - 1;
+            if (removed > 0) {
+                System.arraycopy(starts, hi, starts, lo + 1, size - hi);
+                System.arraycopy(ends, hi, ends, lo + 1, size - hi);
+                size -= removed;
+            }
+        }
+    }
+
+    public void add(Range r) {
+        add(r.start(), r.endExclusive());
+    }
+
+    public void addAll(LongIntervalSet other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.starts[i], other.ends[i]);
+        }
+    }
+
+    public boolean contains(long p) {
+        int i = firstEndAtLeast(p + 1);
+        return i < size && starts[i] <= p;
+    }
+
+    public long totalLength() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += ends[i] - starts[i];
+        }
+        return total;
+    }
+
+    public LongIntervalSet difference() {
+        return difference(new LongIntervalSet(Math.max(1, size - 1)));
+    }
+
+    public LongIntervalSet difference(LongIntervalSet target) {
+        target.clear();
+        for (int i = 0; i + 1 < size; i++) {
+            target.append(ends[i], starts[i + 1]);
+        }
+        return target;
+    }
+
+    public LongIntervalSet intersection(long start, long endExclusive) {
+        return intersection(start, endExclusive, new LongIntervalSet(Math.max(1, size)));
+    }
+
+    public LongIntervalSet intersection(long start, long endExclusive, LongIntervalSet target) {
+        target.clear();
+        for (int i = firstEndAtLeast(start + 1); i < size && starts[i] < endExclusive; i++) {
+            long from = Math.max(start, starts[i]);
+            long to = Math.min(endExclusive, ends[i]);
+            if (from < to) {
+                target.append(from, to);
+            }
+        }
+        return target;
+    }
+
+    public List<Range> getRanges() {
+        var result = new ArrayList<Range>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new Range(starts[i], ends[i]));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        var sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(starts[i]).append("..").append(ends[i]);
+        }
+        return sb.append("]").toString();
+    }
+
+    // Only used where the input is already sorted and disjoint
+    private void append(long start, long endExclusive) {
+        ensureCapacity(size + 1);
+        starts[size] = start;
+        ends[size] = endExclusive;
+        size++;
+    }
+
+    private int firstEndAtLeast(long p) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ends[mid] < p) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int firstStartAbove(long p, int from) {
+        int lo = from;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (starts[mid] <= p) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > starts.length) {
+            int newCapacity = Math.max(capacity, starts.length * 2);
+            starts = Arrays.copyOf(starts, newCapacity);
+            ends = Arrays.copyOf(ends, newCapacity);
+        }
+    }
+}
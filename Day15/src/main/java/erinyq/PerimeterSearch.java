@@ -0,0 +1,93 @@
+package erinyq;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+public class PerimeterSearch {
+
+    private final SensorIndex index;
+
+    public PerimeterSearch(Map<Position, Position> sensors) {
+        this(new SensorIndex(sensors));
+    }
+
+    public PerimeterSearch(SensorIndex index) {
+        this.index = index;
+    }
+
+    public Optional<Position> find(long max) {
+        // An isolated gap sits where two of the lines y - x = a and y + x = b just outside
+        // the sensors cross, or where one of them meets the border of the search area
+        long[] ascending = new long[index.size() * 2];
+        long[] descending = new long[index.size() * 2];
+        for (int i = 0; i < index.size(); i++) {
+            long x = index.x(i);
+            long y = index.y(i);
+            long r = index.radius(i);
+            ascending[2 * i] = y - x - r - 1;
+            ascending[2 * i + 1] = y - x + r + 1;
+            descending[2 * i] = y + x - r - 1;
+            descending[2 * i + 1] = y + x + r + 1;
+        }
+        ascending = distinct(ascending);
+        descending = distinct(descending);
+
+        for (long a : ascending) {
+            for (long b : descending) {
+                if (((b - a) & 1) == 0 && isFree((b - a) / 2, (b + a) / 2, max)) {
+                    return Optional.of(new Position((b - a) / 2, (b + a) / 2));
+                }
+            }
+        }
+
+        long last = max - 1;
+        for (long a : ascending) {
+            if (isFree(0, a, max)) {
+                return Optional.of(new Position(0, a));
+            } else if (isFree(last, last + a, max)) {
+                return Optional.of(new Position(last, last + a));
+            } else if (isFree(-a, 0, max)) {
+                return Optional.of(new Position(-a, 0));
+            } else if (isFree(last - a, last, max)) {
+                return Optional.of(new Position(last - a, last));
+            }
+        }
+        for (long b : descending) {
+            if (isFree(0, b, max)) {
+                return Optional.of(new Position(0, b));
+            } else if (isFree(last, b - last, max)) {
+                return Optional.of(new Position(last, b - last));
+            } else if (isFree(b, 0, max)) {
+                return Optional.of(new Position(b, 0));
+            } else if (isFree(b - last, last, max)) {
+                return Optional.of(new Position(b - last, last));
+            }
+        }
+        long[] corners = {0, 0, last, 0, 0, last, last, last};
+        for (int i = 0; i < corners.length; i += 2) {
+            if (isFree(corners[i], corners[i + 1], max)) {
+                return Optional.of(new Position(corners[i], corners[i + 1]));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean isFree(long x, long y, long max) {
+        return x >= 0 && y >= 0 && x < max && y < max && ! index.isCovered(x, y);
+    }
+
+    private static long[] distinct(long[] values) {
+        if (values.length == 0) {
+            return values;
+        }
+        Arrays.sort(values);
+        int n = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[n - 1]) {
+                values[n++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, n);
+    }
+}
@@ -15,8 +15,15 @@ public record Position(long x, long y) {
     }
 
     public long length() {
-        var a = abs();
-        return a.x + a.y;
+        return Math.abs(x) + Math.abs(y);
+    }
+
+    public long distance(Position p) {
+        return distance(x, y, p.x, p.y);
+    }
+
+    public static long distance(long x1, long y1, long x2, long y2) {
+        return Math.abs(x1 - x2) + Math.abs(y1 - y2);
     }
 
     public int compare(Position p) {
@@ -0,0 +1,43 @@
+package erinyq;
+
+import static java.lang.Math.abs;
+
+public class RowCoverage {
+
+    private final long row;
+    private final LongIntervalSet covered = new LongIntervalSet();
+    private final LongIntervalSet beacons = new LongIntervalSet();
+    private long sensors;
+
+    public RowCoverage(long row) {
+        this.row = row;
+    }
+
+    public long row() {
+        return row;
+    }
+
+    public long sensors() {
+        return sensors;
+    }
+
+    public void add(long xSensor, long ySensor, long xBeacon, long yBeacon) {
+        var radius = Position.distance(xSensor, ySensor, xBeacon, yBeacon);
+        var xdiff = radius - abs(ySensor - row);
+        if (xdiff >= 0) {
+            covered.add(xSensor - xdiff, xSensor + xdiff + 1);
+        }
+        if (yBeacon == row) {
+            beacons.add(xBeacon, xBeacon + 1);
+        }
+        sensors++;
+    }
+
+    public LongIntervalSet covered() {
+        return covered;
+    }
+
+    public long nonBeaconCount() {
+        return covered.totalLength() - beacons.totalLength();
+    }
+}
@@ -0,0 +1,140 @@
+package erinyq;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+public class SensorIndex {
+
+    // Sensors sorted on the first row they cover, laid out as an implicit balanced tree where
+    // the node for [lo, hi) sits at (lo + hi) / 2 and maxLast holds the last row covered in its subtree
+    private final long[] xs;
+    private final long[] ys;
+    private final long[] radii;
+    private final long[] maxLast;
+
+    public SensorIndex(Map<Position, Position> sensors) {
+        var sorted = sensors.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getKey().y() - e.getValue().length()))
+                .toList();
+        int n = sorted.size();
+        xs = new long[n];
+        ys = new long[n];
+        radii = new long[n];
+        maxLast = new long[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = sorted.get(i).getKey().x();
+            ys[i] = sorted.get(i).getKey().y();
+            radii[i] = sorted.get(i).getValue().length();
+        }
+        build(0, n);
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    public long x(int i) {
+        return xs[i];
+    }
+
+    public long y(int i) {
+        return ys[i];
+    }
+
+    public long radius(int i) {
+        return radii[i];
+    }
+
+    public long firstRow(int i) {
+        return ys[i] - radii[i];
+    }
+
+    public long lastRow(int i) {
+        return ys[i] + radii[i];
+    }
+
+    public void forEachCovering(long row, IntConsumer action) {
+        forEachCovering(row, 0, xs.length, action);
+    }
+
+    public LongIntervalSet rowCoverage(long row, LongIntervalSet target) {
+        return rowCoverage(row, Long.MIN_VALUE, Long.MAX_VALUE, target);
+    }
+
+    public LongIntervalSet rowCoverage(long row, long min, long maxExclusive, LongIntervalSet target) {
+        target.clear();
+        collect(row, 0, xs.length, min, maxExclusive, target);
+        return target;
+    }
+
+    public boolean isCovered(long x, long y) {
+        return isCovered(x, y, 0, xs.length);
+    }
+
+    private long build(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        maxLast[mid] = Math.max(lastRow(mid), Math.max(build(lo, mid), build(mid + 1, hi)));
+        return maxLast[mid];
+    }
+
+    private void forEachCovering(long row, int lo, int hi, IntConsumer action) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxLast[mid] < row) {
+                return;
+            }
+            forEachCovering(row, lo, mid, action);
+            if (firstRow(mid) > row) {
+                return;
+            }
+            if (lastRow(mid) >= row) {
+                action.accept(mid);
+            }
+            lo = mid + 1;
+        }
+    }
+
+    private void collect(long row, int lo, int hi, long min, long maxExclusive, LongIntervalSet target) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxLast[mid] < row) {
+                return;
+            }
+            collect(row, lo, mid, min, maxExclusive, target);
+            if (firstRow(mid) > row) {
+                return;
+            }
+            long xdiff = radii[mid] - Math.abs(ys[mid] - row);
+            long start = Math.max(min, xs[mid] - xdiff);
+            long end = Math.min(maxExclusive, xs[mid] + xdiff + 1);
+            if (xdiff >= 0 && start < end) {
+                target.add(start, end);
+            }
+            lo = mid + 1;
+        }
+    }
+
+    private boolean isCovered(long x, long y, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxLast[mid] < y) {
+                return false;
+            }
+            if (isCovered(x, y, lo, mid)) {
+                return true;
+            }
+            if (firstRow(mid) > y) {
+                return false;
+            }
+            if (Position.distance(xs[mid], ys[mid], x, y) <= radii[mid]) {
+                return true;
+            }
+            lo = mid + 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+import org.junit.jupiter.api.Test;
+
+import erinyq.Position;
+import erinyq.SensorIndex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Day15Test {
+
+    private static final String SAMPLE = """
+            Sensor at x=2, y=18: closest beacon is at x=-2, y=15
+            Sensor at x=9, y=16: closest beacon is at x=10, y=16
+            Sensor at x=13, y=2: closest beacon is at x=15, y=3
+            Sensor at x=12, y=14: closest beacon is at x=10, y=16
+            Sensor at x=10, y=20: closest beacon is at x=10, y=16
+            Sensor at x=14, y=17: closest beacon is at x=10, y=16
+            Sensor at x=8, y=7: closest beacon is at x=2, y=10
+            Sensor at x=2, y=0: closest beacon is at x=2, y=10
+            Sensor at x=0, y=11: closest beacon is at x=2, y=10
+            Sensor at x=20, y=14: closest beacon is at x=25, y=17
+            Sensor at x=17, y=20: closest beacon is at x=21, y=22
+            Sensor at x=16, y=7: closest beacon is at x=15, y=3
+            Sensor at x=14, y=3: closest beacon is at x=15, y=3
+            Sensor at x=20, y=1: closest beacon is at x=15, y=3
+            """;
+
+    // Hands out the chunks one read at a time; a null chunk is the writer not having caught up
+    // yet, and once the chunks run out the reader interrupts the follower to stop it
+    private static class GrowingReader extends Reader {
+        private final Deque<String> chunks;
+        private final Deque<Boolean> pauses = new ArrayDeque<>();
+
+        GrowingReader(String... chunks) {
+            this.chunks = new ArrayDeque<>();
+            for (var chunk : chunks) {
+                this.chunks.add(chunk == null ? "" : chunk);
+                pauses.add(chunk == null);
+            }
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (chunks.isEmpty()) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+            var chunk = chunks.poll();
+            if (pauses.poll()) {
+                return -1;
+            }
+            chunk.getChars(0, chunk.length(), buffer, offset);
+            return chunk.length();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    void streamSample() throws IOException {
+        var coverage = Day15.execise1Stream(10, new StringReader(SAMPLE), false);
+        assertEquals(14L, coverage.sensors());
+        assertEquals(26L, coverage.nonBeaconCount());
+    }
+
+    @Test
+    void streamLastLineWithoutNewline() throws IOException {
+        var coverage = Day15.execise1Stream(10, new StringReader(SAMPLE.strip()), false);
+        assertEquals(14L, coverage.sensors());
+        assertEquals(26L, coverage.nonBeaconCount());
+    }
+
+    @Test
+    void followPartiallyWrittenLines() throws IOException {
+        var lines = SAMPLE.split("(?<=\n)");
+        var head = String.join("", Arrays.copyOfRange(lines, 0, 7));
+        var tail = String.join("", Arrays.copyOfRange(lines, 8, lines.length));
+        var split = lines[7].indexOf("closest");
+        try {
+            var coverage = Day15.execise1Stream(10, new GrowingReader(
+                    head + lines[7].substring(0, split), null,
+                    lines[7].substring(split, split + 5), null,
+                    lines[7].substring(split + 5) + tail.substring(0, 20), null,
+                    tail.substring(20)), true);
+            assertEquals(14L, coverage.sensors());
+            assertEquals(26L, coverage.nonBeaconCount());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void followOnlyRegularFiles() throws IOException {
+        var file = Files.createTempFile("day15", ".txt");
+        try {
+            assertTrue(Day15.isGrowable(file));
+            assertFalse(Day15.isGrowable(file.getParent()));
+            assertFalse(Day15.isGrowable(Path.of("-")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static SensorIndex sampleIndex() {
+        Map<Position, Position> sensors = new HashMap<>();
+        Day15.parseInput(List.of(SAMPLE.split("\n")), sensors, new HashSet<>());
+        return new SensorIndex(sensors);
+    }
+
+    // Single cell sensors on every cell of the size x size area except the given ones
+    private static SensorIndex coveredExcept(long size, Position... holes) {
+        Map<Position, Position> sensors = new HashMap<>();
+        for (long y = 0; y < size; y++) {
+            for (long x = 0; x < size; x++) {
+                sensors.put(new Position(x, y), new Position(0, 0));
+            }
+        }
+        for (var hole : holes) {
+            sensors.remove(hole);
+        }
+        return new SensorIndex(sensors);
+    }
+
+    @Test
+    void sweepRowsSample() {
+        for (int parallelism : new int[] {1, 4}) {
+            assertEquals(new Position(14, 11), Day15.sweepRows(20, sampleIndex(), parallelism));
+        }
+    }
+
+    @Test
+    void sweepRowsEdgeGaps() {
+        for (int parallelism : new int[] {1, 4}) {
+            assertEquals(new Position(0, 3), Day15.sweepRows(5, coveredExcept(5, new Position(0, 3)), parallelism));
+            assertEquals(new Position(4, 1), Day15.sweepRows(5, coveredExcept(5, new Position(4, 1)), parallelism));
+            var row = new Position[5];
+            for (int x = 0; x < 5; x++) {
+                row[x] = new Position(x, 2);
+            }
+            assertEquals(new Position(0, 2), Day15.sweepRows(5, coveredExcept(5, row), parallelism));
+            assertNull(Day15.sweepRows(5, coveredExcept(5), parallelism));
+        }
+    }
+}
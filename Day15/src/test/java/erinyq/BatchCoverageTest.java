@@ -0,0 +1,50 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchCoverageTest {
+
+    @Test
+    void sameAsRowCoverage() {
+        var random = new Random(6);
+        Map<Position, Position> sensors = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            sensors.put(new Position(random.nextInt(100), random.nextInt(100)), new Position(random.nextInt(12), random.nextInt(12)));
+        }
+        var index = new SensorIndex(sensors);
+        long[] rows = random.longs(300, -20, 120).toArray();
+        var results = new BatchCoverage(index, 0, 100).coverage(rows);
+        assertEquals(rows.length, results.length);
+        var expected = new LongIntervalSet();
+        for (int i = 0; i < rows.length; i++) {
+            index.rowCoverage(rows[i], 0, 100, expected);
+            assertEquals(rows[i], results[i].row());
+            assertEquals(expected.totalLength(), results[i].covered());
+            assertEquals(100 - expected.totalLength(), results[i].gaps().totalLength());
+            for (long x = 0; x < 100; x++) {
+                assertNotEquals(expected.contains(x), results[i].gaps().contains(x));
+            }
+        }
+    }
+
+    @Test
+    void sampleGap() {
+        var sensors = PerimeterSearchTest.sensors(new long[][] {
+                {2, 18, -2, 15}, {9, 16, 10, 16}, {13, 2, 15, 3}, {12, 14, 10, 16},
+                {10, 20, 10, 16}, {14, 17, 10, 16}, {8, 7, 2, 10}, {2, 0, 2, 10},
+                {0, 11, 2, 10}, {20, 14, 25, 17}, {17, 20, 21, 22}, {16, 7, 15, 3},
+                {14, 3, 15, 3}, {20, 1, 15, 3}});
+        var results = new BatchCoverage(new SensorIndex(sensors), 0, 21).coverage(new long[] {11, 10, 11});
+        assertEquals(20L, results[0].covered());
+        assertEquals(1, results[0].gaps().size());
+        assertEquals(14L, results[0].gaps().start(0));
+        assertEquals(21L, results[1].covered());
+        assertSame(results[0], results[2]);
+    }
+}
@@ -0,0 +1,39 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoverageRasterTest {
+
+    @Test
+    void renderRow() {
+        // Sensor at 5,5 with radius 2 covers 3..7 on row 5, pixels span two cells each
+        var sensors = new SensorIndex(Map.of(new Position(5, 5), new Position(2, 0)));
+        var raster = new CoverageRaster(sensors, 10);
+        var line = new byte[5];
+        raster.renderRow(5, 5, new LongIntervalSet(), line);
+        assertArrayEquals(new byte[] {(byte) 255, (byte) 128, 0, 0, (byte) 255}, line);
+    }
+
+    @Test
+    void exportPgm() throws IOException {
+        var sensors = new SensorIndex(Map.of(new Position(5, 5), new Position(2, 0)));
+        var path = Files.createTempFile("coverage", ".pgm");
+        try {
+            new CoverageRaster(sensors, 10).exportPgm(path, 10, 10);
+            var bytes = Files.readAllBytes(path);
+            var header = "P5\n10 10\n255\n".getBytes(StandardCharsets.US_ASCII);
+            assertEquals(header.length + 100, bytes.length);
+            assertEquals(0, bytes[header.length + 5 * 10 + 5]);
+            assertEquals((byte) 255, bytes[header.length]);
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
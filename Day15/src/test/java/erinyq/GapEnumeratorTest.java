@@ -0,0 +1,46 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GapEnumeratorTest {
+
+    // Sensor at 2,2 with radius 2 on a 5x5 area leaves the four corner triangles uncovered
+    private final GapEnumerator enumerator = new GapEnumerator(new SensorIndex(Map.of(new Position(2, 2), new Position(2, 0))), 5);
+
+    @Test
+    void enumerate() {
+        var spans = new ArrayList<long[]>();
+        var found = enumerator.enumerate(Long.MAX_VALUE, (y, start, end) -> spans.add(new long[] {y, start, end}));
+        assertEquals(8L, found);
+        assertArrayEquals(new long[] {0, 0, 2}, spans.get(0));
+        assertArrayEquals(new long[] {0, 3, 5}, spans.get(1));
+        assertArrayEquals(new long[] {1, 0, 1}, spans.get(2));
+        assertArrayEquals(new long[] {3, 4, 5}, spans.get(5));
+        assertArrayEquals(new long[] {4, 3, 5}, spans.get(7));
+    }
+
+    @Test
+    void enumerateLimit() {
+        var spans = new ArrayList<long[]>();
+        var found = enumerator.enumerate(3, (y, start, end) -> spans.add(new long[] {y, start, end}));
+        assertEquals(3L, found);
+        assertEquals(3, spans.size());
+    }
+
+    @Test
+    void uncoveredArea() {
+        assertEquals(12L, enumerator.uncoveredArea());
+    }
+
+    @Test
+    void spansAddUpToUncoveredArea() {
+        long[] area = new long[1];
+        enumerator.enumerate(Long.MAX_VALUE, (y, start, end) -> area[0] += end - start);
+        assertEquals(enumerator.uncoveredArea(), area[0]);
+    }
+}
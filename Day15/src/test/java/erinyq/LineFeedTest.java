@@ -0,0 +1,29 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineFeedTest {
+
+    @Test
+    void holdsBackPartialLine() throws IOException {
+        var feed = new LineFeed(new StringReader("first\r\nsecond\nthi"));
+        assertEquals(List.of("first", "second"), feed.read());
+        assertEquals("thi", feed.rest());
+        assertNull(feed.read());
+        assertEquals("thi", feed.rest());
+    }
+
+    @Test
+    void emptyLines() throws IOException {
+        var feed = new LineFeed(new StringReader("\n\nx\n"));
+        assertEquals(List.of("", "", "x"), feed.read());
+        assertEquals("", feed.rest());
+        assertNull(feed.read());
+    }
+}
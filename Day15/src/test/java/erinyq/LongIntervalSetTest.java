@@ -0,0 +1,262 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntervalSetTest {
+
+    @Test
+    void contains() {
+        LongIntervalSet r = new LongIntervalSet();
+        r.add(12L, 24L);
+        assertTrue(r.contains(12L));
+        assertTrue(r.contains(13L));
+        assertFalse(r.contains(24L));
+        assertFalse(r.contains(11L));
+    }
+
+    @Test
+    void mergeOverlapping() {
+        LongIntervalSet r = new LongIntervalSet();
+        r.add(12L, 24L);
+        r.add(13L, 24L);
+        r.add(12L, 23L);
+        r.add(24L, 25L);
+        assertEquals(1, r.size());
+        assertEquals(12L, r.start(0));
+        assertEquals(25L, r.endExclusive(0));
+        r.add(25L, 25L);
+        r.add(30L, 30L);
+        assertEquals(2, r.size());
+        assertEquals(30L, r.start(1));
+        assertEquals(30L, r.endExclusive(1));
+        assertEquals(13L, r.totalLength());
+        assertSameAsRanges(new Range(12L, 24L), new Range(13L, 24L), new Range(12L, 23L), new Range(24L, 25L),
+                new Range(25L, 25L), new Range(30L, 30L));
+    }
+
+    @Test
+    void mergeSingleRange() {
+        LongIntervalSet r = new LongIntervalSet();
+        r.add(12L, 24L);
+        r.add(13L, 24L);
+        r.add(12L, 23L);
+        r.add(15L, 27L);
+        r.add(12L, 27L);
+        assertEquals(1, r.size());
+        assertEquals(12L, r.start(0));
+        assertEquals(27L, r.endExclusive(0));
+    }
+
+    @Test
+    void mergeMultipleRange() {
+        LongIntervalSet r = new LongIntervalSet();
+        r.add(32L, 37L);
+        r.add(12L, 24L);
+        r.add(25L, 27L);
+        r.add(13L, 24L);
+        r.add(12L, 23L);
+        assertEquals(3, r.size());
+        assertEquals(12L, r.start(0));
+        assertEquals(24L, r.endExclusive(0));
+        assertEquals(25L, r.start(1));
+        assertEquals(32L, r.start(2));
+    }
+
+    @Test
+    void mergeBridging() {
+        LongIntervalSet r = new LongIntervalSet(1);
+        r.add(1L, 2L);
+        r.add(4L, 5L);
+        r.add(7L, 8L);
+        r.add(10L, 11L);
+        r.add(3L, 8L);
+        assertEquals(3, r.size());
+        assertEquals(3L, r.start(1));
+        assertEquals(8L, r.endExclusive(1));
+        assertEquals(10L, r.start(2));
+    }
+
+    @Test
+    void mergeDifference() {
+        LongIntervalSet r = new LongIntervalSet();
+        r.add(12L, 24L);
+        r.add(13L, 24L);
+        r.add(12L, 23L);
+        r.add(25L, 27L);
+        r.add(32L, 37L);
+        var result = r.difference();
+        assertEquals(2, result.size());
+        assertEquals(24L, result.start(0));
+        assertEquals(25L, result.endExclusive(0));
+        assertEquals(27L, result.start(1));
+        assertEquals(32L, result.endExclusive(1));
+    }
+
+    @Test
+    void differenceSingleRange() {
+        LongIntervalSet r = new LongIntervalSet();
+        r.add(12L, 24L);
+        assertTrue(r.difference().isEmpty());
+    }
+
+    @Test
+    void intersection() {
+        LongIntervalSet r = new LongIntervalSet();
+        r.add(12L, 24L);
+        r.add(13L, 24L);
+        r.add(12L, 23L);
+        r.add(25L, 27L);
+        r.add(32L, 37L);
+        var result = r.intersection(13L, 15L);
+        assertEquals(1, result.size());
+        assertEquals(13L, result.start(0));
+        assertEquals(15L, result.endExclusive(0));
+        assertTrue(r.intersection(24L, 25L).isEmpty());
+        assertEquals(2, r.intersection(20L, 26L).size());
+    }
+
+    @Test
+    void totalLength() {
+        LongIntervalSet r = new LongIntervalSet();
+        r.add(12L, 24L);
+        r.add(25L, 27L);
+        r.add(20L, 22L);
+        assertEquals(14L, r.totalLength());
+    }
+
+    @Test
+    void sameAsRanges() {
+        var random = new Random(15);
+        for (int round = 0; round < 200; round++) {
+            Ranges ranges = new Ranges();
+            LongIntervalSet set = new LongIntervalSet();
+            for (int i = 0; i < 20; i++) {
+                long start = random.nextInt(200);
+                long end = start + 1 + random.nextInt(15);
+                ranges.addAll(new Range(start, end));
+                set.add(start, end);
+            }
+            assertEquals(ranges.getRanges(), set.getRanges());
+            assertEquals(ranges.difference().getRanges(), set.difference().getRanges());
+            assertEquals(ranges.intersection(new Range(50L, 150L)).getRanges(), set.intersection(50L, 150L).getRanges());
+        }
+    }
+
+    private static LongIntervalSet assertSameAsRanges(Range... rs) {
+        Ranges ranges = new Ranges();
+        ranges.addAll(rs);
+        LongIntervalSet set = new LongIntervalSet();
+        for (Range r : rs) {
+            set.add(r);
+        }
+        assertEquals(ranges.getRanges(), set.getRanges());
+        assertEquals(ranges.difference().getRanges(), set.difference().getRanges());
+        return set;
+    }
+
+    // The RangeTest cases with the same ranges, checked against Ranges holding them
+
+    @Test
+    void rangeContains() {
+        var r = assertSameAsRanges(new Range(12L,24L));
+        assertTrue(r.contains(12L));
+        assertTrue(r.contains(13L));
+        assertFalse(r.contains(24L));
+    }
+
+    @Test
+    void rangeSplit() {
+        var r = assertSameAsRanges(new Range(12L,13L), new Range(13L,24L));
+        assertEquals(List.of(new Range(12L,24L)), r.getRanges());
+    }
+
+    @Test
+    void rangeCompare() {
+        var r = assertSameAsRanges(new Range(13L,24L), new Range(12L,24L), new Range(12L,23L));
+        assertEquals(List.of(new Range(12L,24L)), r.getRanges());
+    }
+
+    @Test
+    void rangeIsOverlapping() {
+        Range r1 = new Range(12L,24L);
+        Range r2 = new Range(13L,24L);
+        Range r3 = new Range(12L,23L);
+        Range r4 = new Range(24L,25L);
+        Range r5 = new Range(25L,25L);
+        assertEquals(1, assertSameAsRanges(r1, r1).size());
+        assertEquals(1, assertSameAsRanges(r1, r2).size());
+        assertEquals(1, assertSameAsRanges(r1, r3).size());
+        assertEquals(1, assertSameAsRanges(r1, r4).size());
+        assertEquals(2, assertSameAsRanges(r1, r5).size());
+    }
+
+    @Test
+    void rangeIsEmpty() {
+        Range r1 = new Range(12L,24L);
+        Range r2 = new Range(13L,13L);
+        assertEquals(12L, assertSameAsRanges(r1).totalLength());
+        var empty = assertSameAsRanges(r2);
+        assertEquals(1, empty.size());
+        assertEquals(0L, empty.totalLength());
+        assertFalse(empty.contains(13L));
+    }
+
+    @Test
+    void rangeIntersection() {
+        Range r1 = new Range(12L,24L);
+        Range r2 = new Range(13L,24L);
+        Range r3 = new Range(12L,23L);
+        Range r4 = new Range(15L,27L);
+        Range r5 = new Range(15L,24L);
+        var r = assertSameAsRanges(r1);
+        for (Range other : List.of(r2, r3, r4)) {
+            var ranges = new Ranges(r1).intersection(other).getRanges();
+            assertEquals(ranges, r.intersection(other.start(), other.endExclusive()).getRanges());
+        }
+        assertEquals(List.of(r5), r.intersection(r4.start(), r4.endExclusive()).getRanges());
+        var empty = assertSameAsRanges(new Range(30L, 30L));
+        assertEquals(new Ranges(new Range(30L, 30L)).intersection(new Range(20L, 40L)).getRanges(),
+                empty.intersection(20L, 40L).getRanges());
+    }
+
+    @Test
+    void rangeUnion() {
+        Range r1 = new Range(12L,24L);
+        Range r2 = new Range(13L,24L);
+        Range r3 = new Range(12L,23L);
+        Range r4 = new Range(15L,27L);
+        Range r5 = new Range(12L,27L);
+        assertEquals(List.of(r1), assertSameAsRanges(r1, r2).getRanges());
+        assertEquals(List.of(r1), assertSameAsRanges(r1, r3).getRanges());
+        assertEquals(List.of(r5), assertSameAsRanges(r1, r4).getRanges());
+    }
+
+    @Test
+    void rangeUnion2() {
+        Range r1 = new Range(12L,24L);
+        Range r2 = new Range(24L,27L);
+        Range r3 = new Range(12L,27L);
+        assertEquals(List.of(r3), assertSameAsRanges(r1, r2).getRanges());
+    }
+
+    @Test
+    void sameAsRangesWithEmptyRanges() {
+        var random = new Random(2);
+        for (int round = 0; round < 200; round++) {
+            var rs = new Range[20];
+            for (int i = 0; i < rs.length; i++) {
+                long start = random.nextInt(200);
+                rs[i] = new Range(start, start + random.nextInt(4) * random.nextInt(6));
+            }
+            var set = assertSameAsRanges(rs);
+            Ranges ranges = new Ranges();
+            ranges.addAll(rs);
+            assertEquals(ranges.intersection(new Range(50L, 150L)).getRanges(), set.intersection(50L, 150L).getRanges());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PerimeterSearchTest {
+
+    private static final long[][] SAMPLE = {
+            {2, 18, -2, 15}, {9, 16, 10, 16}, {13, 2, 15, 3}, {12, 14, 10, 16},
+            {10, 20, 10, 16}, {14, 17, 10, 16}, {8, 7, 2, 10}, {2, 0, 2, 10},
+            {0, 11, 2, 10}, {20, 14, 25, 17}, {17, 20, 21, 22}, {16, 7, 15, 3},
+            {14, 3, 15, 3}, {20, 1, 15, 3}
+    };
+
+    static Map<Position, Position> sensors(long[][] rows) {
+        Map<Position, Position> sensors = new HashMap<>();
+        for (long[] row : rows) {
+            var sensor = new Position(row[0], row[1]);
+            sensors.put(sensor, sensor.subtract(new Position(row[2], row[3])).abs());
+        }
+        return sensors;
+    }
+
+    @Test
+    void findSample() {
+        var result = new PerimeterSearch(sensors(SAMPLE)).find(20);
+        assertTrue(result.isPresent());
+        assertEquals(new Position(14, 11), result.get());
+    }
+
+    @Test
+    void findOnBorder() {
+        // Single sensor covering everything but the corner (0, 3) of a 4x4 area
+        var sensors = sensors(new long[][] {{3, 0, 3, 5}});
+        var result = new PerimeterSearch(sensors).find(4);
+        assertTrue(result.isPresent());
+        assertEquals(new Position(0, 3), result.get());
+    }
+
+    @Test
+    void findNothing() {
+        var sensors = sensors(new long[][] {{2, 2, 2, 8}});
+        assertTrue(new PerimeterSearch(sensors).find(4).isEmpty());
+    }
+}
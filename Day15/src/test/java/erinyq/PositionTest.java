@@ -0,0 +1,23 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionTest {
+
+    @Test
+    void length() {
+        assertEquals(7L, new Position(-3, 4).length());
+        assertEquals(7L, new Position(3, -4).abs().length());
+    }
+
+    @Test
+    void distance() {
+        var p1 = new Position(2, 18);
+        var p2 = new Position(-2, 15);
+        assertEquals(7L, p1.distance(p2));
+        assertEquals(p1.subtract(p2).length(), Position.distance(2, 18, -2, 15));
+        assertEquals(0L, p1.distance(p1));
+    }
+}
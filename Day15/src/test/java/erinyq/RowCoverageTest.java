@@ -0,0 +1,30 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowCoverageTest {
+
+    @Test
+    void sampleRow10() {
+        RowCoverage coverage = new RowCoverage(10);
+        coverage.add(8, 7, 2, 10);
+        assertEquals(12L, coverage.nonBeaconCount());
+        coverage.add(2, 18, -2, 15);
+        coverage.add(9, 16, 10, 16);
+        coverage.add(13, 2, 15, 3);
+        coverage.add(12, 14, 10, 16);
+        coverage.add(10, 20, 10, 16);
+        coverage.add(14, 17, 10, 16);
+        coverage.add(2, 0, 2, 10);
+        coverage.add(0, 11, 2, 10);
+        coverage.add(20, 14, 25, 17);
+        coverage.add(17, 20, 21, 22);
+        coverage.add(16, 7, 15, 3);
+        coverage.add(14, 3, 15, 3);
+        coverage.add(20, 1, 15, 3);
+        assertEquals(14L, coverage.sensors());
+        assertEquals(26L, coverage.nonBeaconCount());
+    }
+}
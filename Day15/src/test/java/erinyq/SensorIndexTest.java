@@ -0,0 +1,74 @@
+package erinyq;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SensorIndexTest {
+
+    private static Map<Position, Position> randomSensors(Random random, int n) {
+        Map<Position, Position> sensors = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            var sensor = new Position(random.nextInt(200), random.nextInt(200));
+            sensors.put(sensor, new Position(random.nextInt(20), random.nextInt(20)));
+        }
+        return sensors;
+    }
+
+    @Test
+    void forEachCovering() {
+        var random = new Random(4);
+        var sensors = randomSensors(random, 300);
+        var index = new SensorIndex(sensors);
+        for (long row = -30; row < 230; row++) {
+            final long y = row;
+            long expected = sensors.entrySet().stream().filter(e -> Math.abs(e.getKey().y() - y) <= e.getValue().length()).count();
+            List<Integer> found = new ArrayList<>();
+            index.forEachCovering(row, found::add);
+            assertEquals(expected, found.size());
+            found.forEach(i -> assertTrue(index.firstRow(i) <= y && index.lastRow(i) >= y));
+        }
+    }
+
+    @Test
+    void rowCoverage() {
+        var random = new Random(5);
+        var sensors = randomSensors(random, 50);
+        var index = new SensorIndex(sensors);
+        var ranges = new LongIntervalSet();
+        for (long row = 0; row < 200; row++) {
+            index.rowCoverage(row, 0, 200, ranges);
+            for (long x = -10; x < 210; x++) {
+                assertEquals(x >= 0 && x < 200 && index.isCovered(x, row), ranges.contains(x));
+            }
+        }
+    }
+
+    @Test
+    void isCovered() {
+        var random = new Random(6);
+        var sensors = randomSensors(random, 50);
+        var index = new SensorIndex(sensors);
+        for (long y = -10; y < 210; y += 3) {
+            for (long x = -10; x < 210; x += 3) {
+                final var p = new Position(x, y);
+                boolean expected = sensors.entrySet().stream().anyMatch(e -> e.getKey().subtract(p).length() <= e.getValue().length());
+                assertEquals(expected, index.isCovered(x, y));
+            }
+        }
+    }
+
+    @Test
+    void empty() {
+        var index = new SensorIndex(Map.of());
+        assertEquals(0, index.size());
+        assertFalse(index.isCovered(0, 0));
+        assertTrue(index.rowCoverage(0, new LongIntervalSet()).isEmpty());
+    }
+}